@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.adapters;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListView;
+
+import org.dmfs.android.calendarcontent.provider.CalendarContentContract.ContentItem;
+import org.dmfs.webcal.R;
+import org.dmfs.webcal.utils.ImageProxy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Test that binding the rows of a {@link MixedNavigationAdapter} doesn't read from or write to the storage on the main thread, even if none of the icons is
+ * in the memory cache.
+ * <p>
+ * This needs to run on a device, the JVM doesn't report any disk access to {@link StrictMode}. The violation listener has been added in Android 9.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = 28)
+public class MixedNavigationAdapterStrictModeTest
+{
+    private final static int ROWS = 20;
+
+    /**
+     * The icon ids of the rows. The provider doesn't know any of them, so they are never loaded.
+     */
+    private final static long FIRST_ICON_ID = 0x7fff0000L;
+
+
+    @Test
+    public void testNoDiskAccessWhileBinding()
+    {
+        final List<Violation> violations = new ArrayList<Violation>();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Context context = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.SchedJoules_Theme_Default);
+                MixedNavigationAdapter adapter = new MixedNavigationAdapter(context, cursor(FIRST_ICON_ID), 0, true);
+                ViewGroup parent = new ListView(context);
+
+                // inflate the rows and set up the ImageProxy first, loading resources is allowed to touch the storage
+                View[] rows = new View[ROWS];
+                for (int i = 0; i < ROWS; ++i)
+                {
+                    rows[i] = adapter.getView(i, null, parent);
+                }
+
+                // bind the rows to icons that haven't been requested yet
+                adapter.changeCursor(cursor(FIRST_ICON_ID + ROWS));
+                StrictMode.ThreadPolicy oldPolicy = StrictMode.getThreadPolicy();
+                StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder().detectDiskReads().detectDiskWrites().penaltyListener(new Executor()
+                {
+                    @Override
+                    public void execute(Runnable command)
+                    {
+                        command.run();
+                    }
+                }, new StrictMode.OnThreadViolationListener()
+                {
+                    @Override
+                    public void onThreadViolation(Violation v)
+                    {
+                        synchronized (violations)
+                        {
+                            violations.add(v);
+                        }
+                    }
+                }).build());
+                try
+                {
+                    for (int i = 0; i < ROWS; ++i)
+                    {
+                        adapter.getView(i, rows[i], parent);
+                    }
+                    ImageProxy.getInstance(context).getImage(FIRST_ICON_ID + 2 * ROWS, null);
+                }
+                finally
+                {
+                    StrictMode.setThreadPolicy(oldPolicy);
+                }
+            }
+        });
+
+        // violations of the main thread are reported once the current message has been handled
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        synchronized (violations)
+        {
+            assertTrue("disk access on the main thread: " + violations, violations.isEmpty());
+        }
+    }
+
+
+    private static MatrixCursor cursor(long firstIconId)
+    {
+        MatrixCursor cursor = new MatrixCursor(MixedNavigationAdapter.PROJECTION);
+        for (int i = 0; i < ROWS; ++i)
+        {
+            cursor.addRow(new Object[] { i, "item " + i, i % 2 == 0 ? ContentItem.TYPE_CALENDAR : ContentItem.TYPE_PAGE, firstIconId + i, null, i % 3 });
+        }
+        return cursor;
+    }
+}
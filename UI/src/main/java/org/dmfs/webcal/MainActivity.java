@@ -58,6 +58,7 @@ import org.dmfs.webcal.fragments.CalendarItemFragment;
 import org.dmfs.webcal.fragments.CategoriesListFragment.CategoryNavigator;
 import org.dmfs.webcal.fragments.GenericListFragment;
 import org.dmfs.webcal.fragments.PagerFragment;
+import org.dmfs.webcal.utils.ImageProxy;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
@@ -131,6 +132,8 @@ public class MainActivity extends NavbarActivity
     protected void onCreate(Bundle savedInstanceState)
     {
         super.onCreate(savedInstanceState);
+        // start warming up the icon cache before the first page is bound
+        ImageProxy.getInstance(this);
         setContentView(R.layout.activity_home);
 
         Toolbar toolbar = findViewById(R.id.toolbar);
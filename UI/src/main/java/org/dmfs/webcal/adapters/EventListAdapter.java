@@ -18,10 +18,10 @@
 package org.dmfs.webcal.adapters;
 
 import android.content.Context;
+import android.database.CharArrayBuffer;
 import android.database.Cursor;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
-import android.text.format.Time;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -29,12 +29,17 @@ import android.widget.CursorAdapter;
 import android.widget.TextView;
 
 import org.dmfs.android.webcalreader.provider.WebCalReaderContract;
-import org.dmfs.rfc5545.DateTime;
-import org.dmfs.rfc5545.Duration;
 import org.dmfs.webcal.R;
+import org.dmfs.webcal.utils.CursorRow;
+import org.dmfs.webcal.utils.DateFormatCache;
+import org.dmfs.webcal.utils.PrecomputedTextCache;
+import org.dmfs.webcal.utils.RowViewPool;
+import org.dmfs.webcal.utils.TimeZoneCache;
 
 import java.util.TimeZone;
 
+import androidx.core.widget.TextViewCompat;
+
 
 /**
  * Adapter for event listings.
@@ -44,95 +49,164 @@ import java.util.TimeZone;
  */
 public class EventListAdapter extends CursorAdapter
 {
+    private final static int COLUMN_TITLE = 0;
+    private final static int COLUMN_IS_ALLDAY = 1;
+    private final static int COLUMN_DTSTART = 2;
+    private final static int COLUMN_DTEND = 3;
+    private final static int COLUMN_TIMEZONE = 4;
+    private final static int COLUMN_LOCATION = 5;
+    private final static int COLUMN_DESCRIPTION = 6;
+
+    private final static long ONE_DAY = 24 * 3600 * 1000L;
+
+    /**
+     * Timed events ending later than this after their start show the end date.
+     */
+    private final static long MULTI_DAY_THRESHOLD = 12 * 3600 * 1000L;
+
+    /**
+     * The time zone to format dates in that are given as UTC midnight.
+     */
+    private final static String UTC = "UTC";
+
+    private final static int END_DATE_FLAGS = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_NO_YEAR | DateUtils.FORMAT_ABBREV_MONTH;
+
     private final LayoutInflater mInflater;
 
+    private final CursorRow mRow = new CursorRow(WebCalReaderContract.Events.TITLE, WebCalReaderContract.Events.IS_ALLDAY,
+            WebCalReaderContract.Events.DTSTART, WebCalReaderContract.Events.DTEND, WebCalReaderContract.Events.TIMZONE, WebCalReaderContract.Events.LOCATION,
+            WebCalReaderContract.Events.DESCRIPTION);
+
+    private RowViewPool mRowViewPool;
+
+    /**
+     * The texts of the upcoming rows, measured in the background.
+     */
+    private final PrecomputedTextCache mTitles;
+    private final PrecomputedTextCache mLocations;
+    private final PrecomputedTextCache mDescriptions;
+
+    /**
+     * The number of rows ahead of the current row to precompute the texts for.
+     */
+    private final int mPrecomputeDistance;
+
+    /**
+     * The last position the texts have been precomputed for.
+     */
+    private int mPrecomputedTo = -1;
+
+    private final String mAllDayText;
+
+    /**
+     * The builder to join date and time, it's reused for all rows.
+     */
+    private final StringBuilder mTextBuilder = new StringBuilder(32);
+
+    /**
+     * The buffer to read the texts of the upcoming rows into.
+     */
+    private final CharArrayBuffer mPrecomputeBuffer = new CharArrayBuffer(256);
+
+    /**
+     * The time zone of the last bound row. Usually all events of a calendar have the same time zone, so we don't need to look it up for every row.
+     */
+    private final CharArrayBuffer mTimeZoneBuffer = new CharArrayBuffer(32);
+    private String mTimeZoneId;
+    private TimeZone mTimeZone;
+
+    /**
+     * The default time zone, it's updated whenever the cursor changes.
+     */
+    private TimeZone mDefaultTimeZone = TimeZone.getDefault();
+
 
     public EventListAdapter(Context context, Cursor cursor)
     {
         super(context, cursor, false);
         mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+        mPrecomputeDistance = context.getResources().getInteger(R.integer.org_dmfs_webcal_precomputed_text_rows);
+        // keep the texts of a few screens in both directions
+        int cacheSize = Math.max(1, mPrecomputeDistance * 4);
+        mTitles = new PrecomputedTextCache(cacheSize);
+        mLocations = new PrecomputedTextCache(cacheSize);
+        mDescriptions = new PrecomputedTextCache(cacheSize);
+        mAllDayText = context.getString(R.string.all_day);
     }
 
 
-    @Override
-    public void bindView(View view, Context context, Cursor cursor)
+    /**
+     * Set a {@link RowViewPool} to take the rows from instead of inflating them.
+     *
+     * @param rowViewPool
+     *         A {@link RowViewPool} or <code>null</code> to always inflate new rows.
+     */
+    public void setRowViewPool(RowViewPool rowViewPool)
     {
+        mRowViewPool = rowViewPool;
+    }
 
-        Time now = new Time();
-        now.setToNow();
 
+    @Override
+    public void bindView(View view, Context context, Cursor cursor)
+    {
         Tag tag = (Tag) view.getTag();
+        CursorRow row = mRow.of(cursor);
 
-        tag.title.setText(cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.TITLE)));
-
-        boolean allday = cursor.getInt(cursor.getColumnIndex(WebCalReaderContract.Events.IS_ALLDAY)) == 1;
-
-        DateTime start = new DateTime(cursor.getLong(cursor.getColumnIndex(WebCalReaderContract.Events.DTSTART)));
-        String tz = cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.TIMZONE));
-        if (tz != null)
-        {
-            start = start.shiftTimeZone(TimeZone.getTimeZone(tz));
-        }
-        else if (allday)
+        if (!mTitles.hasParams())
         {
-            start = start.toAllDay();
+            // all rows have the same text metrics, take them from the first row
+            mTitles.setParams(TextViewCompat.getTextMetricsParams(tag.title));
+            mLocations.setParams(TextViewCompat.getTextMetricsParams(tag.text2));
+            mDescriptions.setParams(TextViewCompat.getTextMetricsParams(tag.description));
         }
 
-        DateTime end = new DateTime(cursor.getLong(cursor.getColumnIndex(WebCalReaderContract.Events.DTEND)));
-        if (tz != null)
-        {
-            end = end.shiftTimeZone(TimeZone.getTimeZone(tz));
-        }
-        else if (allday)
-        {
-            end = end.toAllDay();
-        }
+        // the texts are copied into buffers of the row, so binding a row doesn't create any Strings
+        CharArrayBuffer title = tag.titleText;
+        row.copyStringToBuffer(COLUMN_TITLE, title);
+        mTitles.apply(tag.title, title.data, 0, title.sizeCopied);
 
-        if (!allday)
-        {
-            tag.text1.setText(DateUtils.formatDateTime(context, start.getTimestamp(), DateUtils.FORMAT_SHOW_TIME));
-        }
-        else
-        {
-            tag.text1.setText(context.getString(R.string.all_day));
-        }
+        boolean allday = row.getInt(COLUMN_IS_ALLDAY) == 1;
+        TimeZone timeZone = timeZone(row);
+        long start = row.getLong(COLUMN_DTSTART);
+        long end = row.getLong(COLUMN_DTEND);
 
         if (!allday)
         {
-            if (end.after(start.addDuration(new Duration(1, 0, 12 * 3600))))
+            tag.text1.setText(DateFormatCache.INSTANCE.format(context, start, DateUtils.FORMAT_SHOW_TIME, mDefaultTimeZone.getID()));
+
+            if (end > start + MULTI_DAY_THRESHOLD)
             {
-                tag.endTime.setText(
-                        DateUtils.formatDateTime(context, end.getTimestamp(),
-                                DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_NO_YEAR | DateUtils.FORMAT_ABBREV_MONTH)
-                                + "\n" + DateUtils.formatDateTime(context, end.getTimestamp(), DateUtils.FORMAT_SHOW_TIME));
+                setEndDateTime(context, tag, end);
                 tag.ellipsis.setVisibility(View.VISIBLE);
                 tag.endTime.setVisibility(View.VISIBLE);
             }
+            else if (end == start)
+            {
+                tag.ellipsis.setVisibility(View.GONE);
+                tag.endTime.setVisibility(View.GONE);
+            }
             else
             {
-                if (end.equals(start))
-                {
-                    tag.ellipsis.setVisibility(View.GONE);
-                    tag.endTime.setVisibility(View.GONE);
-                }
-                else
-                {
-                    tag.endTime.setText(DateUtils.formatDateTime(context, end.getTimestamp(), DateUtils.FORMAT_SHOW_TIME));
-                    tag.ellipsis.setVisibility(View.VISIBLE);
-                    tag.endTime.setVisibility(View.VISIBLE);
-                }
+                tag.endTime.setText(DateFormatCache.INSTANCE.format(context, end, DateUtils.FORMAT_SHOW_TIME, mDefaultTimeZone.getID()));
+                tag.ellipsis.setVisibility(View.VISIBLE);
+                tag.endTime.setVisibility(View.VISIBLE);
             }
         }
         else
         {
-            if (end.after(start.addDuration(new Duration(1, 1, 0))))
+            tag.text1.setText(mAllDayText);
+
+            // compare the local times, all-day events without a time zone are dates in UTC
+            long localStart = timeZone == null ? floorDay(start) * ONE_DAY : start + timeZone.getOffset(start);
+            long localEnd = timeZone == null ? floorDay(end) * ONE_DAY : end + timeZone.getOffset(end);
+            if (localEnd > localStart + ONE_DAY)
             {
                 tag.ellipsis.setVisibility(View.VISIBLE);
                 tag.endTime.setVisibility(View.VISIBLE);
 
-                tag.endTime
-                        .setText(DateUtils.formatDateTime(context, end.swapTimeZone(TimeZone.getDefault()).addDuration(new Duration(-1, 1, 0)).getTimestamp(),
-                                DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_NO_YEAR | DateUtils.FORMAT_ABBREV_MONTH));
+                // the end is exclusive, show the last day of the event, it's the same date in every time zone
+                tag.endTime.setText(DateFormatCache.INSTANCE.format(context, (floorDay(localEnd) - 1) * ONE_DAY, END_DATE_FLAGS, UTC));
             }
             else
             {
@@ -141,10 +215,13 @@ public class EventListAdapter extends CursorAdapter
             }
         }
 
-        String location = cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.LOCATION));
-        if (!TextUtils.isEmpty(location))
+        CharArrayBuffer location = tag.locationText;
+        row.copyStringToBuffer(COLUMN_LOCATION, location);
+        int locationStart = trimmedStart(location.data, 0, location.sizeCopied);
+        int locationEnd = trimmedEnd(location.data, locationStart, location.sizeCopied);
+        if (locationEnd > locationStart)
         {
-            tag.text2.setText(location.trim());
+            mLocations.apply(tag.text2, location.data, locationStart, locationEnd - locationStart);
             tag.text2.setVisibility(View.VISIBLE);
         }
         else
@@ -152,33 +229,21 @@ public class EventListAdapter extends CursorAdapter
             tag.text2.setVisibility(View.GONE);
         }
 
-        String description = cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.DESCRIPTION));
-        if (!TextUtils.isEmpty(description))
+        CharArrayBuffer description = tag.descriptionText;
+        row.copyStringToBuffer(COLUMN_DESCRIPTION, description);
+        int descriptionStart = trimmedStart(description.data, 0, description.sizeCopied);
+        int descriptionEnd = descriptionEnd(description.data, descriptionStart, trimmedEnd(description.data, descriptionStart, description.sizeCopied));
+        if (descriptionEnd > descriptionStart)
         {
-            description = description.trim();
-
-            int newlinePos = description.indexOf('\n');
-            if (newlinePos >= 0)
-            {
-                newlinePos = description.indexOf('\n', newlinePos + 1);
-                if (newlinePos >= 0)
-                {
-                    newlinePos = description.indexOf('\n', newlinePos + 1);
-                    if (newlinePos >= 0)
-                    {
-                        // we have more than two lines, cut off everything from here
-                        description = description.substring(0, newlinePos + 1);
-                    }
-                }
-            }
-
-            tag.description.setText(description);
+            mDescriptions.apply(tag.description, description.data, descriptionStart, descriptionEnd - descriptionStart);
             tag.description.setVisibility(View.VISIBLE);
         }
         else
         {
             tag.description.setVisibility(View.GONE);
         }
+
+        precomputeTexts(cursor);
         //
         // if (now.after(end))
         // {
@@ -192,11 +257,189 @@ public class EventListAdapter extends CursorAdapter
     }
 
 
+    @Override
+    public Cursor swapCursor(Cursor newCursor)
+    {
+        // the positions refer to the old cursor, the texts are still valid though
+        mPrecomputedTo = -1;
+        mDefaultTimeZone = TimeZone.getDefault();
+        return super.swapCursor(newCursor);
+    }
+
+
+    /**
+     * Returns the {@link TimeZone} of the current row or <code>null</code> if it has no time zone.
+     */
+    private TimeZone timeZone(CursorRow row)
+    {
+        if (row.isNull(COLUMN_TIMEZONE))
+        {
+            return null;
+        }
+
+        CharArrayBuffer buffer = mTimeZoneBuffer;
+        row.copyStringToBuffer(COLUMN_TIMEZONE, buffer);
+        if (!contentEquals(mTimeZoneId, buffer))
+        {
+            mTimeZoneId = new String(buffer.data, 0, buffer.sizeCopied);
+            mTimeZone = TimeZoneCache.INSTANCE.timeZone(mTimeZoneId);
+        }
+        return mTimeZone;
+    }
+
+
+    /**
+     * Show the date and the time of day of the given time in two lines in the end time view of the given row.
+     *
+     * @param context
+     *         A {@link Context}.
+     * @param tag
+     *         The {@link Tag} of the row.
+     * @param timestamp
+     *         The time to show.
+     */
+    private void setEndDateTime(Context context, Tag tag, long timestamp)
+    {
+        DateFormatCache formatCache = DateFormatCache.INSTANCE;
+        String timeZoneId = mDefaultTimeZone.getID();
+        StringBuilder builder = mTextBuilder;
+        builder.setLength(0);
+        builder.append(formatCache.format(context, timestamp, END_DATE_FLAGS, timeZoneId)).append('\n')
+                .append(formatCache.format(context, timestamp, DateUtils.FORMAT_SHOW_TIME, timeZoneId));
+
+        int length = builder.length();
+        if (tag.endTimeText.length < length)
+        {
+            tag.endTimeText = new char[length * 2];
+        }
+        builder.getChars(0, length, tag.endTimeText, 0);
+        tag.endTime.setText(tag.endTimeText, 0, length);
+    }
+
+
+    /**
+     * Precompute the texts of the rows following the current row of the given cursor.
+     */
+    private void precomputeTexts(Cursor cursor)
+    {
+        CursorRow row = mRow.of(cursor);
+        int position = cursor.getPosition();
+        int from = Math.max(position + 1, mPrecomputedTo + 1);
+        int to = Math.min(cursor.getCount() - 1, position + mPrecomputeDistance);
+        if (from > to)
+        {
+            return;
+        }
+
+        CharArrayBuffer buffer = mPrecomputeBuffer;
+        for (int pos = from; pos <= to; ++pos)
+        {
+            if (cursor.moveToPosition(pos))
+            {
+                // the texts must be exactly the ones bindView applies
+                row.copyStringToBuffer(COLUMN_TITLE, buffer);
+                mTitles.precompute(buffer.data, 0, buffer.sizeCopied);
+
+                row.copyStringToBuffer(COLUMN_LOCATION, buffer);
+                int start = trimmedStart(buffer.data, 0, buffer.sizeCopied);
+                mLocations.precompute(buffer.data, start, trimmedEnd(buffer.data, start, buffer.sizeCopied) - start);
+
+                row.copyStringToBuffer(COLUMN_DESCRIPTION, buffer);
+                start = trimmedStart(buffer.data, 0, buffer.sizeCopied);
+                mDescriptions.precompute(buffer.data, start, descriptionEnd(buffer.data, start, trimmedEnd(buffer.data, start, buffer.sizeCopied)) - start);
+            }
+        }
+        cursor.moveToPosition(position);
+        mPrecomputedTo = to;
+    }
+
+
+    /**
+     * Returns the position of the first character in the given range that's not white space, like {@link String#trim()} does.
+     */
+    private static int trimmedStart(char[] text, int start, int end)
+    {
+        while (start < end && text[start] <= ' ')
+        {
+            ++start;
+        }
+        return start;
+    }
+
+
+    /**
+     * Returns the position after the last character in the given range that's not white space, like {@link String#trim()} does.
+     */
+    private static int trimmedEnd(char[] text, int start, int end)
+    {
+        while (end > start && text[end - 1] <= ' ')
+        {
+            --end;
+        }
+        return end;
+    }
+
+
+    /**
+     * Returns the end of a description in the given range. Descriptions are cut off after the third line.
+     */
+    private static int descriptionEnd(char[] text, int start, int end)
+    {
+        int lines = 0;
+        for (int i = start; i < end; ++i)
+        {
+            if (text[i] == '\n' && ++lines == 3)
+            {
+                // we have more than two lines, cut off everything from here
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+
+    /**
+     * Returns whether the given {@link String} has the same content as the given buffer.
+     */
+    private static boolean contentEquals(String string, CharArrayBuffer buffer)
+    {
+        int length = buffer.sizeCopied;
+        if (string == null || string.length() != length)
+        {
+            return false;
+        }
+        char[] data = buffer.data;
+        for (int i = 0; i < length; ++i)
+        {
+            if (string.charAt(i) != data[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the number of the day of the given time, rounded towards negative infinity for times before the epoch.
+     */
+    private static long floorDay(long timestamp)
+    {
+        long day = timestamp / ONE_DAY;
+        return timestamp < 0 && timestamp % ONE_DAY != 0 ? day - 1 : day;
+    }
+
+
     @Override
     public View newView(Context context, Cursor cursor, ViewGroup parent)
     {
-        View view = mInflater.inflate(R.layout.events_preview_list_item, parent, false);
-        view.setTag(new Tag(view));
+        View view = mRowViewPool == null ? mInflater.inflate(R.layout.events_preview_list_item, parent, false) : mRowViewPool.inflate(mInflater,
+                R.layout.events_preview_list_item, parent);
+        if (view.getTag() == null)
+        {
+            // rows from the pool may already have a tag
+            view.setTag(new Tag(view));
+        }
         return view;
     }
 
@@ -210,6 +453,14 @@ public class EventListAdapter extends CursorAdapter
         public final TextView endTime;
         public final TextView description;
 
+        /**
+         * The buffers the texts of this row are copied to. The text views may show the content of the buffers, so each row needs its own.
+         */
+        final CharArrayBuffer titleText = new CharArrayBuffer(64);
+        final CharArrayBuffer locationText = new CharArrayBuffer(64);
+        final CharArrayBuffer descriptionText = new CharArrayBuffer(256);
+        char[] endTimeText = new char[32];
+
 
         public Tag(View view)
         {
@@ -32,7 +32,10 @@ import org.dmfs.android.calendarcontent.provider.CalendarContentContract;
 import org.dmfs.android.calendarcontent.provider.CalendarContentContract.ContentItem;
 import org.dmfs.android.calendarcontent.provider.CalendarContentContract.SubscribedCalendars;
 import org.dmfs.webcal.R;
-import org.dmfs.webcal.utils.TintedDrawable;
+import org.dmfs.webcal.utils.ImageProxy;
+import org.dmfs.webcal.utils.CursorRow;
+import org.dmfs.webcal.utils.RowViewPool;
+import org.dmfs.webcal.utils.TintedDrawableCache;
 import org.dmfs.webcal.utils.color.AccentColor;
 import org.dmfs.webcal.views.RemoteImageView;
 
@@ -56,9 +59,20 @@ public class MixedNavigationAdapter extends CursorAdapter
             CalendarContentContract.ContentItem._ID, CalendarContentContract.ContentItem.TITLE,
             CalendarContentContract.ContentItem.TYPE, CalendarContentContract.ContentItem.ICON_ID, ContentItem.SEASON, ContentItem.STARRED };
 
+    private final static int COLUMN_ITEM_ID = 0;
+    private final static int COLUMN_ID = 1;
+
     private LayoutInflater mInflater;
     private boolean mShowMissingIcons = false;
     private final boolean mShowStars;
+    private final int mStarColor;
+    private int mImagePriority = ImageProxy.PRIORITY_VISIBLE;
+    private RowViewPool mRowViewPool;
+
+    /**
+     * Accessor for the id columns, "my calendars" has an item id column, the other listings just have the <code>_id</code>.
+     */
+    private final CursorRow mIdRow = new CursorRow(SubscribedCalendars.ITEM_ID, ContentItem._ID);
 
 
     public MixedNavigationAdapter(Context context, Cursor c, int flags, boolean showStars)
@@ -66,6 +80,8 @@ public class MixedNavigationAdapter extends CursorAdapter
         super(context, c, flags);
         mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
         mShowStars = showStars;
+        // resolve the color only once, not for every row
+        mStarColor = new AccentColor(context).argb();
     }
 
 
@@ -75,6 +91,30 @@ public class MixedNavigationAdapter extends CursorAdapter
     }
 
 
+    /**
+     * Set the priority to load the icons of this adapter with.
+     *
+     * @param imagePriority
+     *         One of {@link ImageProxy#PRIORITY_VISIBLE}, {@link ImageProxy#PRIORITY_PREFETCH} or {@link ImageProxy#PRIORITY_OFFSCREEN}.
+     */
+    public void setImagePriority(int imagePriority)
+    {
+        mImagePriority = imagePriority;
+    }
+
+
+    /**
+     * Set a {@link RowViewPool} to take the rows from instead of inflating them.
+     *
+     * @param rowViewPool
+     *         A {@link RowViewPool} or <code>null</code> to always inflate new rows.
+     */
+    public void setRowViewPool(RowViewPool rowViewPool)
+    {
+        mRowViewPool = rowViewPool;
+    }
+
+
     @Override
     public int getViewTypeCount()
     {
@@ -104,8 +144,8 @@ public class MixedNavigationAdapter extends CursorAdapter
     @Override
     public void bindView(View view, final Context context, final Cursor cursor)
     {
-        final long id = cursor.getLong(cursor.getColumnIndex(SubscribedCalendars.ITEM_ID) >= 0 ? cursor.getColumnIndex(SubscribedCalendars.ITEM_ID) : cursor
-                .getColumnIndex(ContentItem._ID));
+        CursorRow idRow = mIdRow.of(cursor);
+        final long id = idRow.getLong(idRow.has(COLUMN_ITEM_ID) ? COLUMN_ITEM_ID : COLUMN_ID);
         String itemType = cursor.getString(2);
         String season = cursor.getString(4);
         long img = cursor.getLong(3);
@@ -117,6 +157,7 @@ public class MixedNavigationAdapter extends CursorAdapter
             subtitle.setText(TextUtils.isEmpty(season) ? null : context.getString(R.string.season, season));
             title.setSelected(true);
             RemoteImageView icon = (RemoteImageView) view.findViewById(android.R.id.icon);
+            icon.setImagePriority(mImagePriority);
             icon.setRemoteSource(img, mShowMissingIcons);
         }
         else
@@ -126,6 +167,7 @@ public class MixedNavigationAdapter extends CursorAdapter
             RemoteImageView image = (RemoteImageView) view.findViewById(android.R.id.icon);
             subtitle.setText(TextUtils.isEmpty(season) ? null : context.getString(R.string.season, season));
             title.setText(cursor.getString(1));
+            image.setImagePriority(mImagePriority);
             image.setRemoteSource(img, mShowMissingIcons);
         }
 
@@ -167,7 +209,7 @@ public class MixedNavigationAdapter extends CursorAdapter
                 starred.setVisibility(View.VISIBLE);
                 starred.setOnCheckedChangeListener(null);
                 starred.setChecked(cursor.getInt(5) > 0);
-                starred.setButtonDrawable(new TintedDrawable(context, R.drawable.star_selector, new AccentColor(context)).value());
+                starred.setButtonDrawable(TintedDrawableCache.INSTANCE.drawable(context, R.drawable.star_selector, mStarColor));
                 starred.setOnCheckedChangeListener(new OnCheckedChangeListener()
                 {
 
@@ -191,13 +233,7 @@ public class MixedNavigationAdapter extends CursorAdapter
     public View newView(Context context, Cursor cursor, ViewGroup vg)
     {
         String itemType = cursor.getString(2);
-        if (CalendarContentContract.ContentItem.TYPE_PAGE.equals(itemType))
-        {
-            return mInflater.inflate(R.layout.page_entry_item, vg, false);
-        }
-        else
-        {
-            return mInflater.inflate(R.layout.calendar_entry_item, vg, false);
-        }
+        int layout = CalendarContentContract.ContentItem.TYPE_PAGE.equals(itemType) ? R.layout.page_entry_item : R.layout.calendar_entry_item;
+        return mRowViewPool == null ? mInflater.inflate(layout, vg, false) : mRowViewPool.inflate(mInflater, layout, vg);
     }
 };
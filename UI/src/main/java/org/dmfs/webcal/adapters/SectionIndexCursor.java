@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.adapters;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+import org.dmfs.webcal.adapters.SectionTitlesAdapter.SectionIndexer;
+
+
+/**
+ * A {@link Cursor} that comes with the section index of its rows, as built by {@link SectionTitlesAdapter}. The index is built when the cursor is created,
+ * which should happen on the thread that loaded the cursor. A {@link SectionTitlesAdapter} that wraps a cursor adapter with a {@link SectionIndexCursor}
+ * takes the index from the cursor instead of building it on the main thread.
+ * <p>
+ * The index is immutable, it's not updated if the content of the cursor changes.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public final class SectionIndexCursor extends CursorWrapper
+{
+    private final long[] mIndex;
+    private final int mIndexSize;
+    private final int mIndexedCount;
+
+
+    /**
+     * Wrap the given {@link Cursor} and index its rows with the given {@link SectionIndexer}. Each row is passed to the indexer as the {@link Cursor} moved
+     * to that row, just like a cursor adapter returns its items. The cursor is moved before the first row afterwards.
+     *
+     * @param cursor
+     *         The {@link Cursor} to wrap.
+     * @param indexer
+     *         The {@link SectionIndexer} to index the rows, it must return the same section indexes as the one of the {@link SectionTitlesAdapter}.
+     */
+    public SectionIndexCursor(Cursor cursor, SectionIndexer indexer)
+    {
+        super(cursor);
+        int count = cursor.getCount();
+        SectionTitlesAdapter.IndexBuilder builder = new SectionTitlesAdapter.IndexBuilder(null, count);
+        for (int i = 0; i < count && cursor.moveToPosition(i); ++i)
+        {
+            builder.add(indexer.getSectionIndex(cursor), i);
+        }
+        cursor.moveToPosition(-1);
+        mIndex = builder.index();
+        mIndexSize = builder.size();
+        mIndexedCount = count;
+    }
+
+
+    /**
+     * Returns the packed ids of the rows and section headers. Only the first {@link #sectionIndexSize()} values are valid. The array must not be modified.
+     */
+    long[] sectionIndex()
+    {
+        return mIndex;
+    }
+
+
+    /**
+     * Returns the number of valid values in {@link #sectionIndex()}.
+     */
+    int sectionIndexSize()
+    {
+        return mIndexSize;
+    }
+
+
+    /**
+     * Returns the number of rows the index has been built for.
+     */
+    int indexedCount()
+    {
+        return mIndexedCount;
+    }
+}
@@ -28,9 +28,6 @@ import android.widget.FrameLayout;
 import android.widget.ListAdapter;
 import android.widget.TextView;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import androidx.cursoradapter.widget.CursorAdapter;
 
 
@@ -41,6 +38,10 @@ import androidx.cursoradapter.widget.CursorAdapter;
  * TODO: at present this class indexes all elements of the wrapped adapter, which might take some time. We probably can improve that by indexing the elements
  * lazily (when they are accessed).
  * </p>
+ * <p>
+ * To avoid indexing on the main thread, wrap the cursor of a cursor adapter in a {@link SectionIndexCursor} when it's loaded. The index of such a cursor is
+ * used as is.
+ * </p>
  *
  * @author Marten Gajda <marten@dmfs.org>
  */
@@ -86,7 +87,15 @@ public class SectionTitlesAdapter implements ListAdapter
     private final ListAdapter mAdaptedAdapter;
     private final SectionIndexer mIndexer;
     private final int mSectionHeaderViewId;
-    private List<Long> mIndex = new ArrayList<Long>(64);
+    /**
+     * The packed ids of all elements, only the first {@link #mIndexSize} values are valid. The array is only replaced if the index doesn't fit anymore.
+     */
+    private long[] mIndex = new long[64];
+    private int mIndexSize;
+    /**
+     * Whether {@link #mIndex} has been taken from a {@link SectionIndexCursor}, in which case it must not be modified.
+     */
+    private boolean mIndexShared;
     private LayoutInflater mInflater;
     private boolean mHideEmptySectionTitle = true;
 
@@ -101,7 +110,7 @@ public class SectionTitlesAdapter implements ListAdapter
      *
      * @return The packed id.
      */
-    private static long packedId(long sectionId, int itemPos)
+    static long packedId(long sectionId, int itemPos)
     {
         return (long) (sectionId << 32) + (((long) itemPos) & 0x0ffffffffL);
     }
@@ -156,14 +165,14 @@ public class SectionTitlesAdapter implements ListAdapter
     @Override
     public int getCount()
     {
-        return mIndex.size();
+        return mIndexSize;
     }
 
 
     @Override
     public Object getItem(int position)
     {
-        int itemPos = itemPos(mIndex.get(position));
+        int itemPos = itemPos(indexEntry(position));
         if (itemPos == HEADER_ID)
         {
             // TODO: return an object that represents the section header
@@ -179,7 +188,7 @@ public class SectionTitlesAdapter implements ListAdapter
     @Override
     public long getItemId(int position)
     {
-        return mIndex.get(position);
+        return indexEntry(position);
     }
 
 
@@ -203,11 +212,12 @@ public class SectionTitlesAdapter implements ListAdapter
     @Override
     public View getView(int position, View convertView, ViewGroup parent)
     {
-        int itemPos = itemPos(mIndex.get(position));
+        long packedId = indexEntry(position);
+        int itemPos = itemPos(packedId);
 
         if (itemPos == HEADER_ID)
         {
-            String title = mIndexer.getSectionTitle((int) sectionId(mIndex.get(position)));
+            String title = mIndexer.getSectionTitle((int) sectionId(packedId));
 
             // this is a section header
             if (convertView == null || convertView instanceof FrameLayout && !TextUtils.isEmpty(title))
@@ -310,19 +320,120 @@ public class SectionTitlesAdapter implements ListAdapter
      */
     private void buildIndex()
     {
-        mIndex.clear();
-        int oldGroupIndex = Integer.MAX_VALUE;
-        for (int i = 0, count = mAdaptedAdapter.getCount(); i < count; ++i)
+        int count = mAdaptedAdapter.getCount();
+
+        Cursor cursor = adaptedCursor();
+        if (cursor instanceof SectionIndexCursor && ((SectionIndexCursor) cursor).indexedCount() == count)
         {
-            int groupIndex = mIndexer.getSectionIndex(mAdaptedAdapter.getItem(i));
-            if (groupIndex != oldGroupIndex)
+            // the index has been built along with the cursor, just take it
+            mIndex = ((SectionIndexCursor) cursor).sectionIndex();
+            mIndexSize = ((SectionIndexCursor) cursor).sectionIndexSize();
+            mIndexShared = true;
+            return;
+        }
+
+        IndexBuilder builder = new IndexBuilder(mIndexShared ? null : mIndex, count);
+        for (int i = 0; i < count; ++i)
+        {
+            builder.add(mIndexer.getSectionIndex(mAdaptedAdapter.getItem(i)), i);
+        }
+        mIndex = builder.index();
+        mIndexSize = builder.size();
+        mIndexShared = false;
+    }
+
+
+    /**
+     * Returns the {@link Cursor} of the wrapped adapter, if it's a cursor adapter.
+     */
+    private Cursor adaptedCursor()
+    {
+        if (mAdaptedAdapter instanceof android.widget.CursorAdapter)
+        {
+            return ((android.widget.CursorAdapter) mAdaptedAdapter).getCursor();
+        }
+        if (mAdaptedAdapter instanceof CursorAdapter)
+        {
+            return ((CursorAdapter) mAdaptedAdapter).getCursor();
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the packed id of the element at the given position.
+     */
+    private long indexEntry(int position)
+    {
+        if (position < 0 || position >= mIndexSize)
+        {
+            throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " + mIndexSize);
+        }
+        return mIndex[position];
+    }
+
+
+    /**
+     * Builds the packed ids of the elements of a list in the order they are shown. It inserts a section header every time the section index changes. This
+     * adapter and {@link SectionIndexCursor} both use it, so an index built along with a cursor is always the same as the one built by the adapter.
+     */
+    final static class IndexBuilder
+    {
+        private final long[] mIndex;
+        private int mSize;
+        private int mLastSectionIndex = Integer.MAX_VALUE;
+
+
+        /**
+         * Create an {@link IndexBuilder} for the given number of elements.
+         *
+         * @param index
+         *         An array to reuse if it's large enough, may be <code>null</code>.
+         * @param count
+         *         The number of elements to index.
+         */
+        IndexBuilder(long[] index, int count)
+        {
+            // in the worst case every element has its own section header
+            mIndex = index != null && index.length >= count * 2 ? index : new long[Math.max(64, count * 2)];
+        }
+
+
+        /**
+         * Add the next element to the index.
+         *
+         * @param sectionIndex
+         *         The section index of the element as returned by {@link SectionIndexer#getSectionIndex(Object)}.
+         * @param itemPos
+         *         The position of the element in the wrapped adapter.
+         */
+        void add(int sectionIndex, int itemPos)
+        {
+            if (sectionIndex != mLastSectionIndex)
             {
-                // we have a new group, add a header
-                mIndex.add(packedId(groupIndex, HEADER_ID));
-                oldGroupIndex = groupIndex;
+                // we have a new section, add a header
+                mIndex[mSize++] = packedId(sectionIndex, HEADER_ID);
+                mLastSectionIndex = sectionIndex;
             }
-            mIndex.add(packedId(groupIndex, i));
+            mIndex[mSize++] = packedId(sectionIndex, itemPos);
+        }
+
+
+        /**
+         * Returns the packed ids. Only the first {@link #size()} values are valid.
+         */
+        long[] index()
+        {
+            return mIndex;
         }
-    }
 
+
+        /**
+         * Returns the number of valid values in {@link #index()}.
+         */
+        int size()
+        {
+            return mSize;
+        }
+    }
 }
@@ -62,9 +62,14 @@ import org.dmfs.webcal.adapters.SectionTitlesAdapter;
 import org.dmfs.webcal.adapters.SectionTitlesAdapter.SectionIndexer;
 import org.dmfs.webcal.fragments.CalendarTitleFragment.SwitchStatusListener;
 import org.dmfs.webcal.utils.AppSettingsIntent;
+import org.dmfs.webcal.utils.CursorRow;
+import org.dmfs.webcal.utils.DateFormatCache;
 import org.dmfs.webcal.utils.Event;
 import org.dmfs.webcal.utils.ProtectedBackgroundJob;
-import org.dmfs.webcal.utils.TintedDrawable;
+import org.dmfs.webcal.utils.RowViewPool;
+import org.dmfs.webcal.utils.SectionIndexCursorLoader;
+import org.dmfs.webcal.utils.TimeZoneCache;
+import org.dmfs.webcal.utils.TintedDrawableCache;
 import org.dmfs.webcal.utils.color.ResourceColor;
 
 import java.net.URI;
@@ -112,6 +117,17 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
     private final static String[] PROJECTION = new String[] {
             CalendarContentContract.ContentItem.TITLE, CalendarContentContract.ContentItem.ICON_ID,
             CalendarContentContract.ContentItem.URL, ContentItem.STARRED, ContentItem._ID };
+    /**
+     * The positions of the event columns in {@link #mEventRow}.
+     */
+    private final static int EVENT_COLUMN_TIMEZONE = 0;
+    private final static int EVENT_COLUMN_DTSTART = 1;
+    private final static int EVENT_COLUMN_DTEND = 2;
+    private final static int EVENT_COLUMN_IS_ALLDAY = 3;
+    private final static int EVENT_COLUMN_TITLE = 4;
+    private final static int EVENT_COLUMN_DESCRIPTION = 5;
+    private final static int EVENT_COLUMN_LOCATION = 6;
+
     private static final int PERMISSION_REQUEST_CODE = 123;
     private final Place mWaitingForCalendarItem = new Place(1);
     private final Place mWaitingForCalendarSubscription = new Place(1);
@@ -216,6 +232,16 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
     private CalendarTitleFragment mTitleFragment;
     private ProgressBar mProgressBar;
     private EventListAdapter mListAdapter;
+    /**
+     * Accessor for the rows of the preview cursor.
+     */
+    private final CursorRow mEventRow = new CursorRow(WebCalReaderContract.Events.TIMZONE, WebCalReaderContract.Events.DTSTART,
+            WebCalReaderContract.Events.DTEND, WebCalReaderContract.Events.IS_ALLDAY, WebCalReaderContract.Events.TITLE, WebCalReaderContract.Events.DESCRIPTION,
+            WebCalReaderContract.Events.LOCATION);
+    /**
+     * The event rows, inflated in the background while the calendar is loading.
+     */
+    private final RowViewPool mRowViewPool = new RowViewPool();
     private ActionBar mActionBar;
     /**
      * This {@link Transition} is fired whenever the calendar item is (re-) loaded.
@@ -361,31 +387,11 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
         mListView.setOnItemClickListener(this);
         mListView.setHeaderDividersEnabled(false);
         mListAdapter = new EventListAdapter(inflater.getContext(), null);
-        mListView.setAdapter(mSectionAdapter = new SectionTitlesAdapter(inflater.getContext(), mListAdapter, new SectionIndexer()
-        {
-
-            @Override
-            public String getSectionTitle(int index)
-            {
-                DateTime start = new DateTime(TimeZone.getDefault(), (index >> 16) & 0x0ffff, (index >> 8) & 0x00ff, index & 0x00ff, 0, 0, 0);
-
-                return DateUtils.formatDateTime(getActivity(), start.getTimestamp(),
-                        DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_SHOW_WEEKDAY | DateUtils.FORMAT_ABBREV_WEEKDAY);
-            }
-
-
-            @Override
-            public int getSectionIndex(Object object)
-            {
-                Cursor cursor = (Cursor) object;
-
-                DateTime start = new DateTime(TimeZone.getTimeZone(cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.TIMZONE))),
-                        cursor.getLong(cursor.getColumnIndex(WebCalReaderContract.Events.DTSTART)));
-                // we return an encoded date as index
-                return (start.getYear() << 16) + (start.getMonth() << 8) + start.getDayOfMonth();
-
-            }
-        }, R.layout.events_preview_list_section_header));
+        mListAdapter.setRowViewPool(mRowViewPool);
+        mRowViewPool.preinflate(inflater.getContext(), R.layout.events_preview_list_item,
+                getResources().getInteger(R.integer.org_dmfs_webcal_preinflated_rows));
+        mListView.setAdapter(mSectionAdapter = new SectionTitlesAdapter(inflater.getContext(), mListAdapter, new EventDayIndexer(inflater.getContext()),
+                R.layout.events_preview_list_section_header));
 
         FragmentManager fm = getChildFragmentManager();
         FragmentTransaction ft = fm.beginTransaction();
@@ -435,6 +441,15 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
     }
 
 
+    @Override
+    public void onDestroyView()
+    {
+        // the rows belong to the views of the activity, don't keep them
+        mRowViewPool.clear();
+        super.onDestroyView();
+    }
+
+
     @Override
     public void onCreateOptionsMenu(Menu menu, MenuInflater inflater)
     {
@@ -442,7 +457,8 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
         inflater.inflate(R.menu.calendar_item, menu);
 
         MenuItem settingsItem = menu.findItem(R.id.menu_settings);
-        settingsItem.setIcon(new TintedDrawable(settingsItem.getIcon(), new ResourceColor(getContext(), R.color.schedjoules_text_secondary)).value());
+        settingsItem.setIcon(
+                TintedDrawableCache.INSTANCE.drawable(getContext(), settingsItem.getIcon(), new ResourceColor(getContext(), R.color.schedjoules_text_secondary).argb()));
         // only show options if the calendar is synced
         settingsItem.setVisible(mSynced);
     }
@@ -482,10 +498,11 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
                 mHandler.postDelayed(mProgressIndicator, PROGRESS_INDICATOR_DELAY);
                 if (mCalendarUrl != null)
                 {
-                    return new CursorLoader(getActivity(),
+                    // index the days on the loader thread, the indexer must not be shared with the adapter
+                    return new SectionIndexCursorLoader(getActivity(),
                             WebCalReaderContract.Events.getEventsUri(getActivity(), mCalendarUrl, 60 * 1000, new BasicHeader("X-Context", "preview")), null,
                             null,
-                            null, null);
+                            null, null, new EventDayIndexer(getActivity().getApplicationContext()));
                 }
                 else
                 {
@@ -736,21 +753,21 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
             return;
         }
 
-        DateTime start = new DateTime(TimeZone.getTimeZone(cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.TIMZONE))),
-                cursor.getLong(cursor.getColumnIndex(WebCalReaderContract.Events.DTSTART)));
+        CursorRow row = mEventRow.of(cursor);
+
+        TimeZone timeZone = TimeZoneCache.INSTANCE.timeZone(row.getString(EVENT_COLUMN_TIMEZONE));
 
-        DateTime end = new DateTime(TimeZone.getTimeZone(cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.TIMZONE))),
-                cursor.getLong(cursor.getColumnIndex(WebCalReaderContract.Events.DTEND)));
+        DateTime start = new DateTime(timeZone, row.getLong(EVENT_COLUMN_DTSTART));
 
-        if (cursor.getInt(cursor.getColumnIndex(WebCalReaderContract.Events.IS_ALLDAY)) != 0)
+        DateTime end = new DateTime(timeZone, row.getLong(EVENT_COLUMN_DTEND));
+
+        if (row.getInt(EVENT_COLUMN_IS_ALLDAY) != 0)
         {
             start = start.toAllDay();
             end = end.toAllDay();
         }
 
-        Event event = new Event(start, end, cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.TITLE)),
-                cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.DESCRIPTION)),
-                cursor.getString(cursor.getColumnIndex(WebCalReaderContract.Events.LOCATION)));
+        Event event = new Event(start, end, row.getString(EVENT_COLUMN_TITLE), row.getString(EVENT_COLUMN_DESCRIPTION), row.getString(EVENT_COLUMN_LOCATION));
 
         Context context = getActivity();
         EventsPreviewActivity.show(context, event, mCalendarName, mIcon, mTitle, mContentUri);
@@ -850,4 +867,47 @@ public class CalendarItemFragment extends SubscribeableItemFragment implements L
         }
         return false;
     }
+
+
+    /**
+     * A {@link SectionIndexer} that groups the events by the day they start at. Each instance has its own {@link CursorRow}, so it must only be used on one
+     * thread.
+     */
+    final static class EventDayIndexer implements SectionIndexer
+    {
+        private final static int COLUMN_TIMEZONE = 0;
+        private final static int COLUMN_DTSTART = 1;
+
+        private final Context mContext;
+        private final CursorRow mRow = new CursorRow(WebCalReaderContract.Events.TIMZONE, WebCalReaderContract.Events.DTSTART);
+
+
+        EventDayIndexer(Context context)
+        {
+            mContext = context;
+        }
+
+
+        @Override
+        public String getSectionTitle(int index)
+        {
+            TimeZone timeZone = TimeZone.getDefault();
+            DateTime start = new DateTime(timeZone, (index >> 16) & 0x0ffff, (index >> 8) & 0x00ff, index & 0x00ff, 0, 0, 0);
+
+            return DateFormatCache.INSTANCE.format(mContext, start.getTimestamp(),
+                    DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_SHOW_WEEKDAY | DateUtils.FORMAT_ABBREV_WEEKDAY,
+                    timeZone.getID());
+        }
+
+
+        @Override
+        public int getSectionIndex(Object object)
+        {
+            CursorRow row = mRow.of((Cursor) object);
+
+            DateTime start = new DateTime(TimeZoneCache.INSTANCE.timeZone(row.getString(COLUMN_TIMEZONE)), row.getLong(COLUMN_DTSTART));
+            // we return an encoded date as index
+            return (start.getYear() << 16) + (start.getMonth() << 8) + start.getDayOfMonth();
+        }
+    }
 }
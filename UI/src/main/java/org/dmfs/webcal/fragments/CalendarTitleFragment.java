@@ -38,7 +38,7 @@ import com.schedjoules.analytics.Analytics;
 
 import org.dmfs.android.calendarcontent.provider.CalendarContentContract.ContentItem;
 import org.dmfs.webcal.R;
-import org.dmfs.webcal.utils.TintedDrawable;
+import org.dmfs.webcal.utils.TintedDrawableCache;
 import org.dmfs.webcal.utils.color.AccentColor;
 import org.dmfs.webcal.views.RemoteImageView;
 
@@ -187,11 +187,12 @@ public class CalendarTitleFragment extends Fragment implements OnClickListener,
         inflater.inflate(R.menu.main, menu);
 
         Context ctx = getContext();
-        mStarIconChecked = new TintedDrawable(ctx, R.drawable.ic_fa_star, new AccentColor(ctx)).value();
-        mStarIconUnChecked = new TintedDrawable(ctx, R.drawable.ic_fa_star_o, new AccentColor(ctx)).value();
+        int accentColor = new AccentColor(ctx).argb();
+        mStarIconChecked = TintedDrawableCache.INSTANCE.drawable(ctx, R.drawable.ic_fa_star, accentColor);
+        mStarIconUnChecked = TintedDrawableCache.INSTANCE.drawable(ctx, R.drawable.ic_fa_star_o, accentColor);
         menu.findItem(R.id.menu_starred).setChecked(mStarred).setIcon(mStarred ? mStarIconChecked : mStarIconUnChecked).setVisible(mStarVisible);
 
-        menu.findItem(R.id.menu_settings).setIcon(new TintedDrawable(getContext(), R.drawable.ic_settings_black_24dp, new AccentColor(getContext())).value());
+        menu.findItem(R.id.menu_settings).setIcon(TintedDrawableCache.INSTANCE.drawable(ctx, R.drawable.ic_settings_black_24dp, accentColor));
     }
 
 
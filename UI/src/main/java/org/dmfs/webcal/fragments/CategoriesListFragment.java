@@ -38,7 +38,15 @@ import org.dmfs.android.retentionmagic.annotations.Parameter;
 import org.dmfs.android.retentionmagic.annotations.Retain;
 import org.dmfs.webcal.R;
 import org.dmfs.webcal.adapters.MixedNavigationAdapter;
+import org.dmfs.webcal.utils.IconPrefetcher;
+import org.dmfs.webcal.utils.ImageProxy;
+import org.dmfs.webcal.utils.RowViewPool;
+import org.dmfs.webcal.views.RemoteImageView;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.fragment.app.Fragment;
 import androidx.loader.app.LoaderManager;
 import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
@@ -72,6 +80,7 @@ public class CategoriesListFragment extends SupportFragment implements OnItemCli
     private int mFirstItem;
     private int mPosFromTop;
     private ListView mListView;
+    private RowViewPool mRowViewPool;
 
     @Retain
     private Uri mPurchasedItem = null;
@@ -109,8 +118,15 @@ public class CategoriesListFragment extends SupportFragment implements OnItemCli
 
         mListView = (ListView) inflater.inflate(R.layout.categories_list, container, false);
         mAdapter = new MixedNavigationAdapter(getActivity(), null, 0, false);
+        mAdapter.setImagePriority(imagePriority(getUserVisibleHint()));
+
+        // share the rows with the other sections of the page
+        Fragment parent = getParentFragment();
+        mRowViewPool = parent instanceof PagerFragment ? ((PagerFragment) parent).getRowViewPool() : null;
+        mAdapter.setRowViewPool(mRowViewPool);
         mListView.setAdapter(mAdapter);
         mListView.setOnItemClickListener(this);
+        mListView.setOnScrollListener(new IconPrefetcher(getActivity(), mAdapter, ContentItem.ICON_ID));
 
         /*
          * Apparently we have to use the parent loader manager.
@@ -127,6 +143,52 @@ public class CategoriesListFragment extends SupportFragment implements OnItemCli
     }
 
 
+    @Override
+    public void onDestroyView()
+    {
+        if (mRowViewPool != null)
+        {
+            // hand our rows to the next section
+            List<View> rows = new ArrayList<View>(mListView.getChildCount() + 4);
+            mListView.reclaimViews(rows);
+            // reclaimViews leaves the rows in the recycler of the list, detach the adapter to clear it, so the list can't bind them again
+            mListView.setAdapter(null);
+            mRowViewPool.recycle(rows);
+        }
+        super.onDestroyView();
+    }
+
+
+    @Override
+    public void setUserVisibleHint(boolean isVisibleToUser)
+    {
+        super.setUserVisibleHint(isVisibleToUser);
+        if (mAdapter == null || mListView == null)
+        {
+            // no views yet, the priority is set when they are created
+            return;
+        }
+
+        // the pager tells us whether this page is visible, load the icons of visible pages first
+        int priority = imagePriority(isVisibleToUser);
+        mAdapter.setImagePriority(priority);
+        for (int i = 0, count = mListView.getChildCount(); i < count; ++i)
+        {
+            View icon = mListView.getChildAt(i).findViewById(android.R.id.icon);
+            if (icon instanceof RemoteImageView)
+            {
+                ((RemoteImageView) icon).setImagePriority(priority);
+            }
+        }
+    }
+
+
+    private static int imagePriority(boolean isVisibleToUser)
+    {
+        return isVisibleToUser ? ImageProxy.PRIORITY_VISIBLE : ImageProxy.PRIORITY_OFFSCREEN;
+    }
+
+
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle args)
     {
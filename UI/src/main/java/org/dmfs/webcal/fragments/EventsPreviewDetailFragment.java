@@ -34,13 +34,14 @@ import org.dmfs.rfc5545.DateTime;
 import org.dmfs.rfc5545.Duration;
 import org.dmfs.webcal.R;
 import org.dmfs.webcal.utils.Event;
-import org.dmfs.webcal.utils.TintedDrawable;
+import org.dmfs.webcal.utils.TintedDrawableCache;
 import org.dmfs.webcal.utils.color.AccentColor;
-import org.dmfs.webcal.utils.color.Color;
 
 import java.util.Formatter;
 import java.util.Locale;
 
+import androidx.annotation.ColorInt;
+
 
 /**
  * A fragment that shows the details of an event.
@@ -108,15 +109,17 @@ public class EventsPreviewDetailFragment extends SupportFragment
     {
         View view = inflater.inflate(R.layout.fragment_events_preview_detail, container, false);
 
+        int accentColor = new AccentColor(getContext()).argb();
+
         TextView titleView = (TextView) view.findViewById(R.id.calendar);
-        tintCompoundDrawable(titleView, new AccentColor(getContext()));
+        tintCompoundDrawable(titleView, accentColor);
         titleView.setText(mCalendarName.equals(mTitle) ? mCalendarName : String.format(Locale.getDefault(), "%s (%s)", mCalendarName, mTitle));
 
         TextView descriptionView = (TextView) view.findViewById(R.id.description);
         descriptionView.setText(mPreviewEvent.description != null ? mPreviewEvent.description.trim() : "");
 
         TextView locationView = (TextView) view.findViewById(R.id.location);
-        tintCompoundDrawable(locationView, new AccentColor(getContext()));
+        tintCompoundDrawable(locationView, accentColor);
         if (locationView != null)
         {
             if (TextUtils.isEmpty(mPreviewEvent.location))
@@ -129,7 +132,7 @@ public class EventsPreviewDetailFragment extends SupportFragment
             }
         }
         TextView dateView = (TextView) view.findViewById(R.id.date);
-        tintCompoundDrawable(dateView, new AccentColor(getContext()));
+        tintCompoundDrawable(dateView, accentColor);
         TextView timeView = (TextView) view.findViewById(R.id.time);
 
         int flags = DEFAULT_DATEUTILS_FLAGS;
@@ -184,13 +187,13 @@ public class EventsPreviewDetailFragment extends SupportFragment
 
 
     // TODO Find a nicer solution. "android:drawableTint" is available from api 23, not sure whether AppCompatTextView can be used somehow
-    private void tintCompoundDrawable(TextView textView, Color color)
+    private void tintCompoundDrawable(TextView textView, @ColorInt int color)
     {
         Drawable[] originals = textView.getCompoundDrawables();
         Drawable[] result = new Drawable[4];
         for (int i = 0; i < originals.length; i++)
         {
-            result[i] = originals[i] == null ? null : new TintedDrawable(originals[i], color).value();
+            result[i] = originals[i] == null ? null : TintedDrawableCache.INSTANCE.drawable(getContext(), originals[i], color);
         }
         textView.setCompoundDrawablesWithIntrinsicBounds(result[0], result[1], result[2], result[3]);
     }
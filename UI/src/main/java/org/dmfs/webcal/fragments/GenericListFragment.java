@@ -37,6 +37,7 @@ import org.dmfs.android.retentionmagic.annotations.Parameter;
 import org.dmfs.webcal.BaseActivity;
 import org.dmfs.webcal.R;
 import org.dmfs.webcal.adapters.MixedNavigationAdapter;
+import org.dmfs.webcal.utils.IconPrefetcher;
 import org.dmfs.webcal.fragments.CategoriesListFragment.CategoryNavigator;
 
 import androidx.appcompat.app.ActionBar;
@@ -147,6 +148,7 @@ public class GenericListFragment extends ActionBarFragment implements OnItemClic
         mAdapter.setShowMissingIcons(true);
         mListView.setAdapter(mAdapter);
         mListView.setOnItemClickListener(this);
+        mListView.setOnScrollListener(new IconPrefetcher(getActivity(), mAdapter, ContentItem.ICON_ID));
 
         setupActionBar(result);
 
@@ -44,6 +44,7 @@ import org.dmfs.webcal.R;
 import org.dmfs.webcal.adapters.SectionsPagerAdapter;
 import org.dmfs.webcal.utils.BitmapUtils;
 import org.dmfs.webcal.utils.ImageProxy.ImageAvailableListener;
+import org.dmfs.webcal.utils.RowViewPool;
 import org.dmfs.webcal.views.TabBarLayout;
 
 import androidx.appcompat.widget.Toolbar;
@@ -97,6 +98,11 @@ public class PagerFragment extends ActionBarFragment implements LoaderManager.Lo
 
     private SharedPreferences mPrefs;
 
+    /**
+     * The rows shared by the lists of all sections.
+     */
+    private final RowViewPool mRowViewPool = new RowViewPool();
+
 
     /**
      * Create a new {@link PagerFragment} for the given sections {@link Uri}.
@@ -207,6 +213,11 @@ public class PagerFragment extends ActionBarFragment implements LoaderManager.Lo
 
         setupActionBar(returnView);
 
+        // inflate some rows for the section lists while the sections are loading
+        int preinflatedRows = getResources().getInteger(R.integer.org_dmfs_webcal_preinflated_rows);
+        mRowViewPool.preinflate(inflater.getContext(), R.layout.page_entry_item, preinflatedRows);
+        mRowViewPool.preinflate(inflater.getContext(), R.layout.calendar_entry_item, preinflatedRows);
+
         // start loading the pages
         LoaderManager loaderManager = getLoaderManager();
         loaderManager.initLoader(ID_SECTION_LOADER, null, this);
@@ -215,6 +226,26 @@ public class PagerFragment extends ActionBarFragment implements LoaderManager.Lo
     }
 
 
+    @Override
+    public void onDestroyView()
+    {
+        // the rows belong to the views of the activity, don't keep them
+        mRowViewPool.clear();
+        super.onDestroyView();
+    }
+
+
+    /**
+     * Returns the {@link RowViewPool} to be used by the lists of the sections.
+     *
+     * @return A {@link RowViewPool}.
+     */
+    public RowViewPool getRowViewPool()
+    {
+        return mRowViewPool;
+    }
+
+
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle extras)
     {
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import androidx.appcompat.widget.AppCompatCheckBox;
+import androidx.appcompat.widget.AppCompatImageView;
+import androidx.appcompat.widget.AppCompatTextView;
+
+
+/**
+ * A {@link LayoutInflater} that can be used on a background thread.
+ * <p>
+ * The inflater returned by {@link LayoutInflater#from(Context)} carries the factory of the activity, which is not thread safe. This inflater doesn't inherit
+ * any factory, instead it creates the AppCompat versions of the few framework widgets our list rows use itself, so the rows look the same as the ones
+ * inflated on the main thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+final class BackgroundLayoutInflater extends LayoutInflater
+{
+    private final static String[] CLASS_PREFIXES = new String[] { "android.widget.", "android.webkit.", "android.app." };
+
+
+    BackgroundLayoutInflater(Context context)
+    {
+        super(context);
+        setFactory2(new AppCompatWidgetFactory());
+    }
+
+
+    @Override
+    public LayoutInflater cloneInContext(Context newContext)
+    {
+        return new BackgroundLayoutInflater(newContext);
+    }
+
+
+    @Override
+    protected View onCreateView(String name, AttributeSet attrs) throws ClassNotFoundException
+    {
+        for (String prefix : CLASS_PREFIXES)
+        {
+            try
+            {
+                View view = createView(name, prefix, attrs);
+                if (view != null)
+                {
+                    return view;
+                }
+            }
+            catch (ClassNotFoundException e)
+            {
+                // try the next prefix
+            }
+        }
+        return super.onCreateView(name, attrs);
+    }
+
+
+    /**
+     * A stateless {@link LayoutInflater.Factory2} that replaces framework widgets by their AppCompat versions.
+     */
+    private final static class AppCompatWidgetFactory implements LayoutInflater.Factory2
+    {
+        @Override
+        public View onCreateView(View parent, String name, Context context, AttributeSet attrs)
+        {
+            return onCreateView(name, context, attrs);
+        }
+
+
+        @Override
+        public View onCreateView(String name, Context context, AttributeSet attrs)
+        {
+            if ("TextView".equals(name))
+            {
+                return new AppCompatTextView(context, attrs);
+            }
+            if ("ImageView".equals(name))
+            {
+                return new AppCompatImageView(context, attrs);
+            }
+            if ("CheckBox".equals(name))
+            {
+                return new AppCompatCheckBox(context, attrs);
+            }
+            // let the inflater create everything else
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import androidx.core.graphics.BitmapCompat;
+
+
+/**
+ * A pool of mutable {@link Bitmap}s that are no longer in use and can be reused to decode other images of the same size. Bitmaps are bucketed by their
+ * dimensions. At present only {@link Bitmap.Config#ARGB_8888} bitmaps are pooled.
+ * <p>
+ * Callers must ensure that a bitmap that has been returned to the pool is no longer displayed anywhere.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public final class BitmapPool
+{
+    /**
+     * The maximum number of bytes held by this pool.
+     */
+    private final int mMaxSize;
+
+    /**
+     * The buckets of bitmaps, mapped by their packed dimensions.
+     */
+    private final HashMap<Long, ArrayList<Bitmap>> mBuckets = new HashMap<Long, ArrayList<Bitmap>>(8);
+
+    private int mSize;
+    private int mHitCount;
+    private int mMissCount;
+
+
+    /**
+     * Create a new {@link BitmapPool} with the given capacity.
+     *
+     * @param maxSize
+     *         The maximum number of bytes the pool should hold.
+     */
+    public BitmapPool(int maxSize)
+    {
+        mMaxSize = maxSize;
+    }
+
+
+    /**
+     * Returns a bitmap of the given size and config from the pool, if there is any.
+     *
+     * @param width
+     *         The width of the bitmap.
+     * @param height
+     *         The height of the bitmap.
+     * @param config
+     *         The {@link Bitmap.Config} of the bitmap.
+     *
+     * @return A mutable {@link Bitmap} or <code>null</code> if the pool doesn't have a matching bitmap.
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config)
+    {
+        if (config == Bitmap.Config.ARGB_8888)
+        {
+            ArrayList<Bitmap> bucket = mBuckets.get(bucketKey(width, height));
+            if (bucket != null && !bucket.isEmpty())
+            {
+                Bitmap bitmap = bucket.remove(bucket.size() - 1);
+                mSize -= BitmapCompat.getAllocationByteCount(bitmap);
+                ++mHitCount;
+                return bitmap;
+            }
+        }
+        ++mMissCount;
+        return null;
+    }
+
+
+    /**
+     * Return a bitmap to the pool. Bitmaps that can't be reused or don't fit into the pool anymore are left to the garbage collector.
+     *
+     * @param bitmap
+     *         A {@link Bitmap} that is no longer in use.
+     */
+    public synchronized void put(Bitmap bitmap)
+    {
+        if (bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888)
+        {
+            return;
+        }
+
+        int size = BitmapCompat.getAllocationByteCount(bitmap);
+        if (mSize + size > mMaxSize)
+        {
+            return;
+        }
+
+        Long key = bucketKey(bitmap.getWidth(), bitmap.getHeight());
+        ArrayList<Bitmap> bucket = mBuckets.get(key);
+        if (bucket == null)
+        {
+            bucket = new ArrayList<Bitmap>(8);
+            mBuckets.put(key, bucket);
+        }
+        else if (bucket.contains(bitmap))
+        {
+            return;
+        }
+        bucket.add(bitmap);
+        mSize += size;
+    }
+
+
+    /**
+     * Remove all bitmaps from the pool.
+     */
+    public synchronized void clear()
+    {
+        mBuckets.clear();
+        mSize = 0;
+    }
+
+
+    /**
+     * Returns the number of allocations that have been avoided by reusing a bitmap from this pool.
+     *
+     * @return The number of successful calls to {@link #get(int, int, Bitmap.Config)}.
+     */
+    public synchronized int hitCount()
+    {
+        return mHitCount;
+    }
+
+
+    /**
+     * Returns the number of times a bitmap had to be allocated because the pool didn't contain a matching bitmap.
+     *
+     * @return The number of unsuccessful calls to {@link #get(int, int, Bitmap.Config)}.
+     */
+    public synchronized int missCount()
+    {
+        return mMissCount;
+    }
+
+
+    private static Long bucketKey(int width, int height)
+    {
+        return ((long) width << 32) + height;
+    }
+}
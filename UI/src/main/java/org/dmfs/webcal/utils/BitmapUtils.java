@@ -17,12 +17,23 @@
 
 package org.dmfs.webcal.utils;
 
+import android.content.res.AssetFileDescriptor;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
 
 /**
  * Helper to perform certain operations on images.
@@ -54,4 +65,166 @@ public class BitmapUtils
         Bitmap b = Bitmap.createScaledBitmap(original, (int) (dpWidth * metrics.density), (int) (dpHeight * metrics.density), true);
         return new BitmapDrawable(resources, b);
     }
+
+
+    /**
+     * Decode the given image data so it fits into a box of the given size. The image bounds are read first to determine the largest subsampling factor that
+     * still results in an image at least as large as the box, the remaining scaling is performed by the decoder. Images that are smaller than the box are
+     * not scaled up.
+     * <p>
+     * On Android 4.4 and newer the decoder reuses a bitmap of the resulting size from the given {@link BitmapPool}, if there is any. The result is always
+     * mutable, so it can be returned to a pool when it's no longer needed.
+     * </p>
+     *
+     * @param data
+     *         The encoded image.
+     * @param width
+     *         The requested width in pixels.
+     * @param height
+     *         The requested height in pixels.
+     * @param metrics
+     *         The {@link DisplayMetrics} of the display the image is shown on, the density of the result is set accordingly.
+     * @param pool
+     *         A {@link BitmapPool} to take a reusable bitmap from, may be <code>null</code>.
+     *
+     * @return The decoded {@link Bitmap} or <code>null</code> if the image could not be decoded.
+     */
+    public static Bitmap decodeScaledBitmap(byte[] data, int width, int height, DisplayMetrics metrics, BitmapPool pool)
+    {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        int imageWidth = options.outWidth;
+        int imageHeight = options.outHeight;
+        if (imageWidth <= 0 || imageHeight <= 0)
+        {
+            return null;
+        }
+
+        // the size of the result, preserving the aspect ratio
+        float scale = Math.min(1f, Math.min((float) width / imageWidth, (float) height / imageHeight));
+        int targetWidth = Math.max(1, Math.round(imageWidth * scale));
+        int targetHeight = Math.max(1, Math.round(imageHeight * scale));
+
+        int sampleSize = 1;
+        while (imageWidth / (sampleSize * 2) >= targetWidth && imageHeight / (sampleSize * 2) >= targetHeight)
+        {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+
+        int sampledWidth = imageWidth / sampleSize;
+        int sampledHeight = imageHeight / sampleSize;
+        int resultWidth = sampledWidth;
+        int resultHeight = sampledHeight;
+        if (sampledWidth > targetWidth)
+        {
+            // let the decoder scale the subsampled image to the final size
+            options.inScaled = true;
+            options.inDensity = sampledWidth;
+            options.inTargetDensity = targetWidth;
+            resultWidth = targetWidth;
+            resultHeight = (int) (sampledHeight * ((float) targetWidth / sampledWidth) + 0.5f);
+        }
+        else
+        {
+            options.inScaled = false;
+        }
+
+        if (pool != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT)
+        {
+            options.inBitmap = pool.get(resultWidth, resultHeight, Bitmap.Config.ARGB_8888);
+        }
+
+        Bitmap result;
+        try
+        {
+            result = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+        catch (IllegalArgumentException e)
+        {
+            // the pooled bitmap could not be reused, decode into a new one
+            options.inBitmap = null;
+            result = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+        if (result != null)
+        {
+            result.setDensity(metrics.densityDpi);
+        }
+        return result;
+    }
+
+
+    /**
+     * Read the entire content of the given {@link AssetFileDescriptor} and close it. If the length of the content is known, the region of the file is read
+     * straight into an array of the exact size using positional reads, without any intermediate buffers. Otherwise (e.g. if the descriptor refers to a pipe)
+     * the content is read as a stream.
+     *
+     * @param afd
+     *         The {@link AssetFileDescriptor} to read.
+     *
+     * @return The content of the descriptor.
+     *
+     * @throws IOException
+     *         if the descriptor could not be read.
+     */
+    public static byte[] readFully(AssetFileDescriptor afd) throws IOException
+    {
+        FileInputStream in = afd.createInputStream();
+        try
+        {
+            long length = afd.getLength();
+            if (length < 0 || length > Integer.MAX_VALUE)
+            {
+                return readFully(in, length);
+            }
+
+            byte[] data = new byte[(int) length];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            FileChannel channel = in.getChannel();
+            long offset = afd.getStartOffset();
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer, offset + buffer.position()) < 0)
+                {
+                    throw new EOFException("unexpected end of file after " + buffer.position() + " of " + length + " bytes");
+                }
+            }
+            return data;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+
+    /**
+     * Read the given {@link InputStream} to the end.
+     *
+     * @param in
+     *         The {@link InputStream} to read.
+     * @param expectedLength
+     *         The expected number of bytes or a negative value if unknown.
+     *
+     * @return The content of the stream.
+     *
+     * @throws IOException
+     *         if the stream could not be read.
+     */
+    public static byte[] readFully(InputStream in, long expectedLength) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(expectedLength > 0 && expectedLength < Integer.MAX_VALUE ? (int) expectedLength : 16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int read;
+        while ((read = in.read(buffer)) >= 0)
+        {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+
+/**
+ * Typed access to a fixed set of columns of the current row of a {@link Cursor}. The column indexes are resolved only once per cursor, not on every access.
+ * <p>
+ * Columns are addressed by their position in the array of column names given to the constructor, usually via constants, like so:
+ * </p>
+ * <pre>
+ * private final static int COLUMN_TITLE = 0;
+ * private final static int COLUMN_START = 1;
+ *
+ * private final CursorRow mRow = new CursorRow(Events.TITLE, Events.DTSTART);
+ *
+ * ...
+ *
+ * CursorRow row = mRow.of(cursor);
+ * String title = row.getString(COLUMN_TITLE);
+ * </pre>
+ * <p>
+ * This class is not thread safe, use one instance per thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public final class CursorRow
+{
+    private final String[] mColumnNames;
+    private final int[] mColumnIndexes;
+    private Cursor mCursor;
+
+
+    /**
+     * Create a {@link CursorRow} for the given columns.
+     *
+     * @param columnNames
+     *         The names of the columns to access.
+     */
+    public CursorRow(String... columnNames)
+    {
+        mColumnNames = columnNames;
+        mColumnIndexes = new int[columnNames.length];
+    }
+
+
+    /**
+     * Access the current row of the given {@link Cursor}. The column indexes are resolved if the cursor differs from the previous one.
+     *
+     * @param cursor
+     *         The {@link Cursor}, positioned at the row to access.
+     *
+     * @return This instance.
+     */
+    public CursorRow of(Cursor cursor)
+    {
+        if (cursor != mCursor)
+        {
+            mCursor = cursor;
+            for (int i = 0, count = mColumnNames.length; i < count; ++i)
+            {
+                mColumnIndexes[i] = cursor.getColumnIndex(mColumnNames[i]);
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Returns whether the cursor contains the given column.
+     *
+     * @param column
+     *         The position of the column in the column names of this {@link CursorRow}.
+     *
+     * @return <code>true</code> if the column exists.
+     */
+    public boolean has(int column)
+    {
+        return mColumnIndexes[column] >= 0;
+    }
+
+
+    public boolean isNull(int column)
+    {
+        return mCursor.isNull(mColumnIndexes[column]);
+    }
+
+
+    public String getString(int column)
+    {
+        return mCursor.getString(mColumnIndexes[column]);
+    }
+
+
+    /**
+     * Copy the text of the given column into the given buffer, without creating a {@link String}. A <code>null</code> value results in an empty buffer.
+     *
+     * @param column
+     *         The position of the column in the column names of this {@link CursorRow}.
+     * @param buffer
+     *         The {@link CharArrayBuffer} to copy the text to.
+     */
+    public void copyStringToBuffer(int column, CharArrayBuffer buffer)
+    {
+        mCursor.copyStringToBuffer(mColumnIndexes[column], buffer);
+    }
+
+
+    public long getLong(int column)
+    {
+        return mCursor.getLong(mColumnIndexes[column]);
+    }
+
+
+    public int getInt(int column)
+    {
+        return mCursor.getInt(mColumnIndexes[column]);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.text.format.DateFormat;
+import android.text.format.DateUtils;
+
+import java.util.Formatter;
+import java.util.Locale;
+
+import androidx.collection.LruCache;
+
+
+/**
+ * A process wide memo of dates and times formatted by {@link DateUtils}. Event listings format the same days and times over and over again, e.g. all events
+ * of a day share the same section title and many events start at the same time of day.
+ * <p>
+ * Formatted values are keyed by the minute of the timestamp, the {@link DateUtils} flags, the time zone, the locale and the 12/24 hour setting. Since
+ * {@link DateUtils} never shows seconds, all timestamps within the same minute share the same result.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public enum DateFormatCache
+{
+    INSTANCE;
+
+    /**
+     * The maximum number of formatted values to keep.
+     */
+    private final static int MAX_SIZE = 256;
+
+    private final static long MINUTE = 60 * 1000;
+
+    private final LruCache<Key, String> mCache = new LruCache<Key, String>(MAX_SIZE);
+
+    /**
+     * A key to look up values without allocating a new key each time, only new entries get a key of their own.
+     */
+    private final Key mLookupKey = new Key();
+
+    private final StringBuilder mBuilder = new StringBuilder(32);
+    private Formatter mFormatter;
+    private Locale mFormatterLocale;
+
+    private int mHitCount;
+    private int mMissCount;
+
+
+    /**
+     * Format the given time like {@link DateUtils#formatDateTime(Context, long, int)} does, but in the given time zone.
+     *
+     * @param context
+     *         A {@link Context}.
+     * @param timestamp
+     *         The time to format.
+     * @param flags
+     *         The {@link DateUtils} flags.
+     * @param timeZoneId
+     *         The id of the time zone to format the time in.
+     *
+     * @return The formatted time.
+     */
+    public synchronized String format(Context context, long timestamp, int flags, String timeZoneId)
+    {
+        Locale locale = Locale.getDefault();
+        Key key = mLookupKey;
+        key.minute = floorMinute(timestamp);
+        key.flags = flags;
+        key.timeZoneId = timeZoneId;
+        key.locale = locale;
+        // the 12/24 hour setting only matters if the time is shown
+        key.is24Hour = (flags & DateUtils.FORMAT_SHOW_TIME) != 0 && DateFormat.is24HourFormat(context);
+
+        String result = mCache.get(key);
+        if (result != null)
+        {
+            ++mHitCount;
+            return result;
+        }
+
+        ++mMissCount;
+        if (!locale.equals(mFormatterLocale))
+        {
+            mFormatter = new Formatter(mBuilder, locale);
+            mFormatterLocale = locale;
+        }
+        mBuilder.setLength(0);
+        result = DateUtils.formatDateRange(context, mFormatter, timestamp, timestamp, flags, timeZoneId).toString();
+        mCache.put(key.copy(), result);
+        return result;
+    }
+
+
+    /**
+     * Returns the number of values that have been taken from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized int hitCount()
+    {
+        return mHitCount;
+    }
+
+
+    /**
+     * Returns the number of values that had to be formatted.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized int missCount()
+    {
+        return mMissCount;
+    }
+
+
+    private static long floorMinute(long timestamp)
+    {
+        long minute = timestamp / MINUTE;
+        // round towards negative infinity for times before the epoch
+        return timestamp < 0 && timestamp % MINUTE != 0 ? minute - 1 : minute;
+    }
+
+
+    /**
+     * The key of a formatted value.
+     */
+    private final static class Key
+    {
+        long minute;
+        int flags;
+        String timeZoneId;
+        Locale locale;
+        boolean is24Hour;
+
+
+        Key copy()
+        {
+            Key result = new Key();
+            result.minute = minute;
+            result.flags = flags;
+            result.timeZoneId = timeZoneId;
+            result.locale = locale;
+            result.is24Hour = is24Hour;
+            return result;
+        }
+
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) o;
+            return minute == other.minute && flags == other.flags && is24Hour == other.is24Hour && locale.equals(other.locale)
+                    && (timeZoneId == null ? other.timeZoneId == null : timeZoneId.equals(other.timeZoneId));
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            int result = (int) (minute ^ (minute >>> 32));
+            result = 31 * result + flags;
+            result = 31 * result + (timeZoneId == null ? 0 : timeZoneId.hashCode());
+            result = 31 * result + locale.hashCode();
+            return 31 * result + (is24Hour ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+
+/**
+ * A small file that contains the ids of the icons that have been shown right after the start of the previous session. These icons are likely to be shown
+ * right after the next start too, so they can be loaded before anyone asks for them.
+ * <p>
+ * All methods perform I/O on the calling thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+final class HotIconManifest
+{
+    private final static String TAG = "HotIconManifest";
+
+    /**
+     * The magic number at the beginning of the manifest file.
+     */
+    private final static int MAGIC = 0x534a484d;
+
+    /**
+     * The version of the file format. Increment this whenever the format changes, existing files will be ignored in that case.
+     */
+    private final static int VERSION = 1;
+
+    /**
+     * The maximum number of icons in the manifest.
+     */
+    final static int MAX_ICONS = 64;
+
+    private final File mFile;
+
+
+    /**
+     * Create a {@link HotIconManifest} that's stored in the given file.
+     *
+     * @param file
+     *         The manifest file.
+     */
+    HotIconManifest(File file)
+    {
+        mFile = file;
+    }
+
+
+    /**
+     * Read the icon ids from the manifest.
+     *
+     * @return The icon ids in the order they have been shown, the array is empty if there is no valid manifest.
+     */
+    long[] read()
+    {
+        if (!mFile.isFile())
+        {
+            return new long[0];
+        }
+
+        try
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            try
+            {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                {
+                    return new long[0];
+                }
+
+                long[] result = new long[Math.max(0, Math.min(MAX_ICONS, in.readInt()))];
+                for (int i = 0; i < result.length; ++i)
+                {
+                    result[i] = in.readLong();
+                }
+                return result;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "could not read hot icon manifest", e);
+            return new long[0];
+        }
+    }
+
+
+    /**
+     * Replace the manifest with the given icon ids.
+     *
+     * @param iconIds
+     *         The ids of the icons that have been shown at the beginning of the current session.
+     * @param count
+     *         The number of valid ids in <code>iconIds</code>.
+     */
+    void write(long[] iconIds, int count)
+    {
+        count = Math.min(MAX_ICONS, count);
+        File tempFile = new File(mFile.getPath() + ".tmp");
+        try
+        {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                for (int i = 0; i < count; ++i)
+                {
+                    out.writeLong(iconIds[i]);
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tempFile.renameTo(mFile))
+            {
+                tempFile.delete();
+            }
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "could not write hot icon manifest", e);
+            tempFile.delete();
+        }
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+
+/**
+ * A persistent cache for decoded icons. Icons are stored as raw pixel data, so loading an icon from this cache doesn't require to decode an image. The cache
+ * maintains an index file that keeps track of the size and the access order of all entries, so it can evict the least recently used icons when it grows
+ * beyond its maximum size, even across restarts.
+ * <p>
+ * Entries expire after a maximum age. The content provider doesn't tell us when an icon has been updated, so this makes sure an updated icon replaces the
+ * cached one at some point, even if it's never evicted.
+ * </p>
+ * <p>
+ * All write operations are performed on a background thread. {@link #get(long)} reads from the file system on the calling thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public final class IconDiskCache
+{
+    private final static String TAG = "IconDiskCache";
+
+    /**
+     * The name of the index file.
+     */
+    private final static String INDEX_FILE = "index";
+
+    /**
+     * The suffix of temporary files. Files are written to a temporary file first and renamed afterwards, so readers never see partial files.
+     */
+    private final static String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * The magic number at the beginning of each file written by this cache.
+     */
+    private final static int MAGIC = 0x534a4943;
+
+    /**
+     * The version of the file format. Increment this whenever the format changes, existing files will be discarded in that case.
+     */
+    private final static int VERSION = 3;
+
+    /**
+     * The size of the icon file header in bytes (magic, version, width, height, density, alpha flag and content hash).
+     */
+    private final static int HEADER_SIZE = 6 * 4 + 8;
+
+    /**
+     * A buffer per thread to read the icon files into. It grows to the size of the largest icon read by the thread and is reused for all subsequent reads.
+     */
+    private final static ThreadLocal<ByteBuffer> READ_BUFFER = new ThreadLocal<ByteBuffer>();
+
+    private final File mDirectory;
+    private final long mMaxSize;
+    private final long mMaxAge;
+    private final BitmapPool mBitmapPool;
+
+    /**
+     * Maps icon ids to the size of their files in access order.
+     */
+    private final LinkedHashMap<Long, Long> mIndex = new LinkedHashMap<Long, Long>(64, 0.75f, true);
+    private long mSize;
+    private boolean mIndexDirty;
+
+    /**
+     * The {@link Executor} that performs all write operations.
+     */
+    private final Executor mWriter = Executors.newSingleThreadExecutor();
+
+
+    /**
+     * Create an {@link IconDiskCache} in the given directory. The index is loaded asynchronously.
+     *
+     * @param directory
+     *         The directory to store the icons in.
+     * @param maxSize
+     *         The maximum number of bytes the cache should use.
+     * @param maxAge
+     *         The maximum age of an entry in milliseconds, older entries are removed when they are accessed.
+     * @param bitmapPool
+     *         A {@link BitmapPool} to take the bitmaps for loaded icons from.
+     */
+    public IconDiskCache(File directory, long maxSize, long maxAge, BitmapPool bitmapPool)
+    {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+        mMaxAge = maxAge;
+        mBitmapPool = bitmapPool;
+        mWriter.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                loadIndex();
+            }
+        });
+    }
+
+
+    /**
+     * Returns the icon with the given id or <code>null</code> if this icon is not in the cache or has expired.
+     *
+     * @param iconId
+     *         The id of the icon.
+     *
+     * @return An {@link Entry} or <code>null</code>.
+     */
+    public Entry get(long iconId)
+    {
+        File file = iconFile(iconId);
+        if (!file.isFile())
+        {
+            return null;
+        }
+
+        if (System.currentTimeMillis() - file.lastModified() > mMaxAge)
+        {
+            // the icon might have been updated in the meantime, load it again
+            remove(iconId);
+            return null;
+        }
+
+        try
+        {
+            int length = (int) file.length();
+            ByteBuffer buffer = READ_BUFFER.get();
+            if (buffer == null || buffer.capacity() < length)
+            {
+                buffer = ByteBuffer.allocateDirect(length);
+                READ_BUFFER.set(buffer);
+            }
+            buffer.clear();
+            buffer.limit(length);
+
+            FileInputStream in = new FileInputStream(file);
+            try
+            {
+                FileChannel channel = in.getChannel();
+                while (buffer.hasRemaining())
+                {
+                    if (channel.read(buffer) < 0)
+                    {
+                        // the file has been truncated, the size check below will drop it
+                        break;
+                    }
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+            buffer.flip();
+
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            {
+                remove(iconId);
+                return null;
+            }
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int density = buffer.getInt();
+            boolean hasAlpha = buffer.getInt() != 0;
+            long contentHash = buffer.getLong();
+            if (width <= 0 || height <= 0 || buffer.remaining() != width * height * 4)
+            {
+                remove(iconId);
+                return null;
+            }
+
+            Bitmap bitmap = mBitmapPool.get(width, height, Bitmap.Config.ARGB_8888);
+            if (bitmap == null)
+            {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            }
+            bitmap.copyPixelsFromBuffer(buffer);
+            bitmap.setDensity(density);
+            // pooled bitmaps still carry the alpha flag of their previous owner
+            bitmap.setHasAlpha(hasAlpha);
+
+            synchronized (mIndex)
+            {
+                // update the access order
+                if (mIndex.get(iconId) != null)
+                {
+                    mIndexDirty = true;
+                }
+            }
+            return new Entry(bitmap, contentHash);
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "could not read icon with id " + iconId, e);
+            return null;
+        }
+    }
+
+
+    /**
+     * Store the given icon in the cache. The pixels are copied on the calling thread, the actual write operation takes place in the background.
+     *
+     * @param iconId
+     *         The id of the icon.
+     * @param contentHash
+     *         The hash of the encoded icon.
+     * @param bitmap
+     *         The {@link Bitmap} to store.
+     */
+    public void put(final long iconId, final long contentHash, Bitmap bitmap)
+    {
+        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888)
+        {
+            bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            if (bitmap == null)
+            {
+                return;
+            }
+        }
+
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int density = bitmap.getDensity();
+        final boolean hasAlpha = bitmap.hasAlpha();
+        final byte[] pixels = new byte[width * height * 4];
+        bitmap.copyPixelsToBuffer(ByteBuffer.wrap(pixels));
+
+        mWriter.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                write(iconId, width, height, density, hasAlpha, contentHash, pixels);
+            }
+        });
+    }
+
+
+    /**
+     * Remove the icon with the given id from the cache.
+     *
+     * @param iconId
+     *         The id of the icon.
+     */
+    public void remove(final long iconId)
+    {
+        mWriter.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                synchronized (mIndex)
+                {
+                    Long size = mIndex.remove(iconId);
+                    if (size != null)
+                    {
+                        mSize -= size;
+                        mIndexDirty = true;
+                    }
+                }
+                iconFile(iconId).delete();
+                writeIndex();
+            }
+        });
+    }
+
+
+    private void write(long iconId, int width, int height, int density, boolean hasAlpha, long contentHash, byte[] pixels)
+    {
+        File file = iconFile(iconId);
+        File tempFile = new File(mDirectory, file.getName() + TEMP_SUFFIX);
+        try
+        {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(width);
+                out.writeInt(height);
+                out.writeInt(density);
+                out.writeInt(hasAlpha ? 1 : 0);
+                out.writeLong(contentHash);
+                out.write(pixels);
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tempFile.renameTo(file))
+            {
+                tempFile.delete();
+                return;
+            }
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "could not write icon with id " + iconId, e);
+            tempFile.delete();
+            return;
+        }
+
+        synchronized (mIndex)
+        {
+            Long oldSize = mIndex.put(iconId, file.length());
+            mSize += file.length() - (oldSize == null ? 0 : oldSize);
+            mIndexDirty = true;
+            trimToSize();
+        }
+        writeIndex();
+    }
+
+
+    /**
+     * Evict the least recently used icons until the cache size is below the maximum size. Must be called while holding the lock on {@link #mIndex}.
+     */
+    private void trimToSize()
+    {
+        Iterator<Map.Entry<Long, Long>> iterator = mIndex.entrySet().iterator();
+        while (mSize > mMaxSize && iterator.hasNext())
+        {
+            Map.Entry<Long, Long> eldest = iterator.next();
+            iconFile(eldest.getKey()).delete();
+            mSize -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+
+    /**
+     * Load the index and remove any files that don't belong to it.
+     */
+    private void loadIndex()
+    {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs())
+        {
+            Log.e(TAG, "could not create cache directory " + mDirectory);
+            return;
+        }
+
+        synchronized (mIndex)
+        {
+            File indexFile = new File(mDirectory, INDEX_FILE);
+            if (indexFile.isFile())
+            {
+                try
+                {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+                    try
+                    {
+                        if (in.readInt() == MAGIC && in.readInt() == VERSION)
+                        {
+                            for (int i = 0, count = in.readInt(); i < count; ++i)
+                            {
+                                long iconId = in.readLong();
+                                long size = in.readLong();
+                                // only accept entries that are still valid
+                                if (iconFile(iconId).length() == size)
+                                {
+                                    mIndex.put(iconId, size);
+                                    mSize += size;
+                                }
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+                catch (IOException e)
+                {
+                    Log.e(TAG, "could not read index, starting with an empty cache", e);
+                    mIndex.clear();
+                    mSize = 0;
+                }
+            }
+
+            // delete any files that are not in the index
+            File[] files = mDirectory.listFiles();
+            if (files != null)
+            {
+                for (File file : files)
+                {
+                    if (!INDEX_FILE.equals(file.getName()) && !mIndex.containsKey(iconId(file)))
+                    {
+                        file.delete();
+                    }
+                }
+            }
+
+            trimToSize();
+        }
+    }
+
+
+    /**
+     * Write the index if it has been modified.
+     */
+    private void writeIndex()
+    {
+        File indexFile = new File(mDirectory, INDEX_FILE);
+        File tempFile = new File(mDirectory, INDEX_FILE + TEMP_SUFFIX);
+        synchronized (mIndex)
+        {
+            if (!mIndexDirty)
+            {
+                return;
+            }
+
+            try
+            {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+                try
+                {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(mIndex.size());
+                    for (Map.Entry<Long, Long> entry : mIndex.entrySet())
+                    {
+                        out.writeLong(entry.getKey());
+                        out.writeLong(entry.getValue());
+                    }
+                }
+                finally
+                {
+                    out.close();
+                }
+                if (tempFile.renameTo(indexFile))
+                {
+                    mIndexDirty = false;
+                }
+            }
+            catch (IOException e)
+            {
+                Log.e(TAG, "could not write index", e);
+                tempFile.delete();
+            }
+        }
+    }
+
+
+    private File iconFile(long iconId)
+    {
+        return new File(mDirectory, Long.toString(iconId));
+    }
+
+
+    /**
+     * Returns the icon id of the given icon file or <code>null</code> if the file is not an icon file.
+     */
+    private Long iconId(File file)
+    {
+        try
+        {
+            return Long.valueOf(file.getName());
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * An icon loaded from the cache.
+     */
+    public final static class Entry
+    {
+        /**
+         * The decoded icon.
+         */
+        public final Bitmap bitmap;
+
+        /**
+         * The hash of the encoded icon.
+         */
+        public final long contentHash;
+
+
+        Entry(Bitmap bitmap, long contentHash)
+        {
+            this.bitmap = bitmap;
+            this.contentHash = contentHash;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+
+
+/**
+ * A priority queue of icon jobs. Jobs are ranked by their priority class first (lower values first), jobs of the same class are returned in LIFO order.
+ * <p>
+ * The queue is a binary heap with an index of the heap position of each job, so adding, removing and re-prioritising a job takes O(log n). If the queue has
+ * a maximum size, adding a job to a full queue drops the job with the lowest rank.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+final class IconJobQueue
+{
+    /**
+     * The number of priority classes.
+     */
+    final static int PRIORITY_CLASSES = 3;
+
+    private final HashMap<Long, Job> mJobs = new HashMap<Long, Job>(64);
+    private Job[] mHeap = new Job[64];
+    private int mSize;
+    private long mSequence;
+
+    /**
+     * The maximum number of jobs, 0 if the queue is unbounded.
+     */
+    private final int mMaxSize;
+
+    private final int[] mDepth = new int[PRIORITY_CLASSES];
+    private final int[] mPolledCount = new int[PRIORITY_CLASSES];
+    private final long[] mTotalWaitTime = new long[PRIORITY_CLASSES];
+
+
+    /**
+     * Create a new {@link IconJobQueue}.
+     *
+     * @param maxSize
+     *         The maximum number of jobs in the queue or 0 to let the queue grow without limits.
+     */
+    IconJobQueue(int maxSize)
+    {
+        mMaxSize = Math.max(0, maxSize);
+    }
+
+
+    /**
+     * Add a job for the given icon or update the existing one. The job becomes the most recent job of the given priority class.
+     *
+     * @param iconId
+     *         The id of the icon.
+     * @param priority
+     *         The priority class of the job.
+     *
+     * @return The id of a job that has been dropped because the queue was full or <code>-1</code>. This might be the given icon id.
+     */
+    long put(long iconId, int priority)
+    {
+        priority = clampPriority(priority);
+        Job job = mJobs.get(iconId);
+        if (job != null)
+        {
+            --mDepth[job.priority];
+            ++mDepth[priority];
+            job.priority = priority;
+            job.sequence = ++mSequence;
+            // the job can only move up within its class, but it may move down if the class has changed
+            siftDown(siftUp(job.index));
+            return -1;
+        }
+
+        job = new Job(iconId, priority, ++mSequence, SystemClock.elapsedRealtime());
+        mJobs.put(iconId, job);
+        ++mDepth[priority];
+        if (mSize == mHeap.length)
+        {
+            Job[] heap = new Job[mSize * 2];
+            System.arraycopy(mHeap, 0, heap, 0, mSize);
+            mHeap = heap;
+        }
+        mHeap[mSize] = job;
+        job.index = mSize;
+        siftUp(mSize++);
+
+        if (mMaxSize > 0 && mSize > mMaxSize)
+        {
+            // the job with the lowest rank is one of the leaves
+            int worst = mSize / 2;
+            for (int i = worst + 1; i < mSize; ++i)
+            {
+                if (before(mHeap[worst], mHeap[i]))
+                {
+                    worst = i;
+                }
+            }
+            long dropped = mHeap[worst].iconId;
+            remove(dropped);
+            return dropped;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Change the priority class of an existing job, keeping its position within the class.
+     *
+     * @param iconId
+     *         The id of the icon.
+     * @param priority
+     *         The new priority class.
+     *
+     * @return <code>true</code> if the job was in the queue.
+     */
+    boolean setPriority(long iconId, int priority)
+    {
+        Job job = mJobs.get(iconId);
+        if (job == null)
+        {
+            return false;
+        }
+
+        priority = clampPriority(priority);
+        if (job.priority != priority)
+        {
+            --mDepth[job.priority];
+            ++mDepth[priority];
+            job.priority = priority;
+            siftDown(siftUp(job.index));
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns whether there is a job for the given icon.
+     */
+    boolean contains(long iconId)
+    {
+        return mJobs.containsKey(iconId);
+    }
+
+
+    /**
+     * Remove the job for the given icon.
+     *
+     * @param iconId
+     *         The id of the icon.
+     *
+     * @return <code>true</code> if the job was in the queue.
+     */
+    boolean remove(long iconId)
+    {
+        Job job = mJobs.remove(iconId);
+        if (job == null)
+        {
+            return false;
+        }
+        --mDepth[job.priority];
+        removeAt(job.index);
+        return true;
+    }
+
+
+    /**
+     * Remove the job with the highest rank from the queue.
+     *
+     * @return The icon id of the job or <code>-1</code> if the queue is empty.
+     */
+    long poll()
+    {
+        if (mSize == 0)
+        {
+            return -1;
+        }
+
+        Job job = mHeap[0];
+        mJobs.remove(job.iconId);
+        --mDepth[job.priority];
+        ++mPolledCount[job.priority];
+        mTotalWaitTime[job.priority] += SystemClock.elapsedRealtime() - job.enqueueTime;
+        removeAt(0);
+        return job.iconId;
+    }
+
+
+    boolean isEmpty()
+    {
+        return mSize == 0;
+    }
+
+
+    int size()
+    {
+        return mSize;
+    }
+
+
+    /**
+     * Returns the number of jobs of the given priority class in the queue.
+     */
+    int depth(int priority)
+    {
+        return mDepth[clampPriority(priority)];
+    }
+
+
+    /**
+     * Returns the average time in milliseconds the jobs of the given priority class spent in the queue before they have been polled.
+     */
+    long averageWaitTime(int priority)
+    {
+        priority = clampPriority(priority);
+        return mPolledCount[priority] == 0 ? 0 : mTotalWaitTime[priority] / mPolledCount[priority];
+    }
+
+
+    private void removeAt(int index)
+    {
+        Job last = mHeap[--mSize];
+        mHeap[mSize] = null;
+        if (index < mSize)
+        {
+            mHeap[index] = last;
+            last.index = index;
+            siftDown(siftUp(index));
+        }
+    }
+
+
+    /**
+     * Move the job at the given index up until its parent ranks higher.
+     *
+     * @return The new index of the job.
+     */
+    private int siftUp(int index)
+    {
+        Job job = mHeap[index];
+        while (index > 0)
+        {
+            int parentIndex = (index - 1) / 2;
+            Job parent = mHeap[parentIndex];
+            if (!before(job, parent))
+            {
+                break;
+            }
+            mHeap[index] = parent;
+            parent.index = index;
+            index = parentIndex;
+        }
+        mHeap[index] = job;
+        job.index = index;
+        return index;
+    }
+
+
+    /**
+     * Move the job at the given index down until both children rank lower.
+     */
+    private void siftDown(int index)
+    {
+        Job job = mHeap[index];
+        int half = mSize / 2;
+        while (index < half)
+        {
+            int childIndex = 2 * index + 1;
+            Job child = mHeap[childIndex];
+            if (childIndex + 1 < mSize && before(mHeap[childIndex + 1], child))
+            {
+                child = mHeap[++childIndex];
+            }
+            if (!before(child, job))
+            {
+                break;
+            }
+            mHeap[index] = child;
+            child.index = index;
+            index = childIndex;
+        }
+        mHeap[index] = job;
+        job.index = index;
+    }
+
+
+    /**
+     * Returns whether job <code>a</code> ranks higher than job <code>b</code>.
+     */
+    private static boolean before(Job a, Job b)
+    {
+        return a.priority < b.priority || a.priority == b.priority && a.sequence > b.sequence;
+    }
+
+
+    private static int clampPriority(int priority)
+    {
+        return Math.max(0, Math.min(PRIORITY_CLASSES - 1, priority));
+    }
+
+
+    /**
+     * A job in the queue.
+     */
+    private final static class Job
+    {
+        final long iconId;
+        final long enqueueTime;
+        int priority;
+        long sequence;
+        int index;
+
+
+        Job(long iconId, int priority, long sequence, long enqueueTime)
+        {
+            this.iconId = iconId;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.widget.AbsListView;
+import android.widget.AbsListView.OnScrollListener;
+
+import org.dmfs.webcal.R;
+
+import androidx.cursoradapter.widget.CursorAdapter;
+
+
+/**
+ * An {@link OnScrollListener} that warms the {@link ImageProxy} with the icons of the rows that are about to scroll into view. It watches the scroll
+ * direction and velocity and reads the icon ids of the next rows from the cursor of the given {@link CursorAdapter}. The number of rows to look ahead is
+ * configured by <code>org_dmfs_webcal_icon_prefetch_distance</code>.
+ *
+ * @author agent <agent@local>
+ */
+public final class IconPrefetcher implements OnScrollListener
+{
+    /**
+     * The time span in milliseconds we look ahead when the list is scrolled quickly.
+     */
+    private final static int LOOKAHEAD_TIME = 500;
+
+    private final ImageProxy mImageProxy;
+    private final CursorAdapter mAdapter;
+    private final String mIconColumn;
+    private final int mMaxDistance;
+
+    private Cursor mCursor;
+    private int mIconColumnIndex = -1;
+
+    private int mLastFirstVisible = -1;
+    private long mLastScrollTime;
+
+    /**
+     * The range of positions whose icons have been requested. It only ever covers positions that have actually been requested, so it's reset if the list
+     * jumps to a range that doesn't touch it.
+     */
+    private int mPrefetchedFrom;
+    private int mPrefetchedTo = -1;
+
+
+    /**
+     * Create an {@link IconPrefetcher} for the given adapter.
+     *
+     * @param context
+     *         A {@link Context}.
+     * @param adapter
+     *         The {@link CursorAdapter} of the list.
+     * @param iconColumn
+     *         The name of the column that contains the icon ids.
+     */
+    public IconPrefetcher(Context context, CursorAdapter adapter, String iconColumn)
+    {
+        mImageProxy = ImageProxy.getInstance(context);
+        mAdapter = adapter;
+        mIconColumn = iconColumn;
+        mMaxDistance = context.getResources().getInteger(R.integer.org_dmfs_webcal_icon_prefetch_distance);
+    }
+
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState)
+    {
+        // nothing to do, we only care about the positions
+    }
+
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount)
+    {
+        Cursor cursor = mAdapter.getCursor();
+        if (cursor == null || mMaxDistance <= 0 || visibleItemCount == 0)
+        {
+            return;
+        }
+
+        if (cursor != mCursor)
+        {
+            // the cursor has been swapped, start over
+            mCursor = cursor;
+            mIconColumnIndex = cursor.getColumnIndex(mIconColumn);
+            mPrefetchedFrom = 0;
+            mPrefetchedTo = -1;
+            mLastFirstVisible = -1;
+        }
+
+        if (mIconColumnIndex < 0 || firstVisibleItem == mLastFirstVisible)
+        {
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        int delta = mLastFirstVisible < 0 ? 1 : firstVisibleItem - mLastFirstVisible;
+        long elapsed = Math.max(1, now - mLastScrollTime);
+        mLastFirstVisible = firstVisibleItem;
+        mLastScrollTime = now;
+
+        // the number of rows that will scroll into view within the look ahead time, at least one screen, but no more than the maximum distance
+        int distance = Math.min(mMaxDistance, Math.max(visibleItemCount, (int) (Math.abs(delta) * LOOKAHEAD_TIME / elapsed)));
+
+        int count = Math.min(totalItemCount, cursor.getCount());
+        int from;
+        int to;
+        if (delta > 0)
+        {
+            from = firstVisibleItem + visibleItemCount;
+            to = Math.min(count - 1, firstVisibleItem + visibleItemCount + distance - 1);
+        }
+        else
+        {
+            from = Math.max(0, firstVisibleItem - distance);
+            to = firstVisibleItem - 1;
+        }
+
+        if (from > to)
+        {
+            return;
+        }
+
+        if (mPrefetchedTo < mPrefetchedFrom || to < mPrefetchedFrom - 1 || from > mPrefetchedTo + 1)
+        {
+            // nothing requested yet or the range doesn't touch the previous one, e.g. after a fast fling, request the entire range
+            prefetch(cursor, from, to, delta);
+            mPrefetchedFrom = from;
+            mPrefetchedTo = to;
+        }
+        else
+        {
+            // only request the parts that have not been requested yet, start with the part that scrolls into view first
+            if (delta > 0)
+            {
+                prefetch(cursor, from, mPrefetchedFrom - 1, delta);
+                prefetch(cursor, mPrefetchedTo + 1, to, delta);
+            }
+            else
+            {
+                prefetch(cursor, mPrefetchedTo + 1, to, delta);
+                prefetch(cursor, from, mPrefetchedFrom - 1, delta);
+            }
+            // the ranges touch, so the union doesn't contain any gaps
+            mPrefetchedFrom = Math.min(mPrefetchedFrom, from);
+            mPrefetchedTo = Math.max(mPrefetchedTo, to);
+        }
+    }
+
+
+    /**
+     * Prefetch the icons of the rows between the given positions (both inclusive). The rows are requested in scroll direction, so the closest row comes
+     * first.
+     *
+     * @param cursor
+     *         The {@link Cursor} of the list.
+     * @param from
+     *         The lowest position to prefetch.
+     * @param to
+     *         The highest position to prefetch.
+     * @param direction
+     *         The scroll direction, positive when scrolling down.
+     */
+    private void prefetch(Cursor cursor, int from, int to, int direction)
+    {
+        if (from > to)
+        {
+            return;
+        }
+
+        int oldPosition = cursor.getPosition();
+        // prefetch jobs are executed in the order they have been requested
+        for (int i = 0, rows = to - from + 1; i < rows; ++i)
+        {
+            int pos = direction > 0 ? from + i : to - i;
+            if (cursor.moveToPosition(pos) && !cursor.isNull(mIconColumnIndex))
+            {
+                mImageProxy.prefetchImage(cursor.getLong(mIconColumnIndex));
+            }
+        }
+        cursor.moveToPosition(oldPosition);
+    }
+}
@@ -17,22 +17,34 @@
 
 package org.dmfs.webcal.utils;
 
-import android.content.Context;
-import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
 
-import org.dmfs.android.calendarcontent.provider.CalendarContentContract;
-
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 /**
- * Maintains a LIFO image download job queue. Download jobs added last will be started next.
+ * Maintains a prioritized image download job queue. Jobs for images on screen are started before prefetch jobs, which are started before jobs for images
+ * on pages that are not visible. Within each priority, download jobs added last will be started next. Jobs are executed by a bounded number of workers in
+ * parallel. Each worker takes the next job from the queue as soon as it has finished the previous one, results are posted to the main thread.
+ * <p>
+ * Loading an image is split into three stages, each with its own threads: the workers only perform the I/O, decoding and the final preparation of the image
+ * happen in separate stages, so reading the next image overlaps with decoding the previous one. The queues between the stages are bounded, if a stage can't
+ * keep up, the previous stage runs the work itself, which slows it down accordingly.
+ * </p>
  *
  * @author Arjun Naik
  * @author Marten Gajda <marten@dmfs.org>
@@ -40,120 +52,470 @@ import java.util.ArrayList;
 public class ImageLoaderQueue
 {
     private static final String TAG = "ImageLoaderQueue";
-    private ArrayList<Long> mDownloadJobQueue = new ArrayList<Long>(64);
-    private ImageLoaderTask mDownloader = null;
+
+    /**
+     * The number of threads decoding images.
+     */
+    private final static int DECODE_THREADS = 2;
+
+    /**
+     * The number of threads preparing decoded images.
+     */
+    private final static int FINISH_THREADS = 1;
+
+    /**
+     * The capacity of the queues between the stages.
+     */
+    private final static int STAGE_QUEUE_SIZE = 8;
+
+    /**
+     * The time in seconds an idle stage thread is kept alive.
+     */
+    private final static int STAGE_KEEP_ALIVE = 30;
+
+    /**
+     * A {@link ThreadFactory} for threads with background priority.
+     */
+    private final static ThreadFactory BACKGROUND_THREAD_FACTORY = new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            return new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, TAG);
+        }
+    };
+
+    /**
+     * The queued jobs, ranked by priority.
+     */
+    private final IconJobQueue mDownloadJobQueue;
+
+    /**
+     * The ids of the images that are currently in any stage of the loader.
+     */
+    private final Set<Long> mInFlight = new HashSet<Long>(16);
+
+    /**
+     * The ids of the images that have been taken from the queue by a worker, but haven't been started yet. These jobs can still be cancelled.
+     */
+    private final Set<Long> mClaimed = new HashSet<Long>(16);
+
+    /**
+     * The maximum number of workers.
+     */
+    private final int mMaxWorkers;
+
+    /**
+     * The number of workers that are currently running. Guarded by {@link #mDownloadJobQueue}.
+     */
+    private int mActiveWorkers = 0;
+
+    private final ExecutorService mExecutor;
+    private final ExecutorService mDecodeExecutor;
+    private final ExecutorService mFinishExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
     private ImageProxy mImageProxy;
-    private Context mContext;
 
 
     /**
      * Creates an {@link ImageLoaderQueue} that notifies the given {@link ImageProxy} when an image has been loaded.
      *
-     * @param context
-     *         A {@link Context}.
      * @param imageProxy
      *         An {@link ImageProxy} to notify about finished jobs.
+     * @param workers
+     *         The maximum number of images to load in parallel.
+     * @param maxQueueSize
+     *         The maximum number of queued jobs or 0 to queue any number of jobs. If the queue is full, the job with the lowest priority is dropped.
      */
-    public ImageLoaderQueue(Context context, ImageProxy imageProxy)
+    public ImageLoaderQueue(ImageProxy imageProxy, int workers, int maxQueueSize)
     {
-        mContext = context;
         mImageProxy = imageProxy;
+        mDownloadJobQueue = new IconJobQueue(maxQueueSize);
+        mMaxWorkers = Math.max(1, workers);
+        mExecutor = Executors.newFixedThreadPool(mMaxWorkers, BACKGROUND_THREAD_FACTORY);
+        mDecodeExecutor = stageExecutor(DECODE_THREADS);
+        mFinishExecutor = stageExecutor(FINISH_THREADS);
     }
 
 
     /**
-     * Append a job for the given iconId at the end of the queue to ensure it will be loaded next.
+     * Create an {@link ExecutorService} for a stage of the pipeline. The executor has a bounded queue and runs jobs on the calling thread when the queue is
+     * full.
+     */
+    private static ExecutorService stageExecutor(int threads)
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, STAGE_KEEP_ALIVE, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(STAGE_QUEUE_SIZE), BACKGROUND_THREAD_FACTORY, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+
+    /**
+     * Add a job for the given iconId with the given priority. The job will be loaded before all other jobs of the same priority. If a job for this image is
+     * already queued, it's moved accordingly. This has no effect if the image is already being loaded.
      *
      * @param iconId
      *         The id of the image to load.
+     * @param priority
+     *         One of {@link ImageProxy#PRIORITY_VISIBLE}, {@link ImageProxy#PRIORITY_PREFETCH} or {@link ImageProxy#PRIORITY_OFFSCREEN}.
+     *
+     * @return The id of an image that has been dropped because the queue was full or <code>-1</code>.
      */
-    public void addJob(long iconId)
+    public long addJob(long iconId, int priority)
     {
         synchronized (mDownloadJobQueue)
         {
-            // remove any existing job
-            mDownloadJobQueue.remove(iconId);
+            if (mInFlight.contains(iconId))
+            {
+                // a worker is already loading this image
+                return -1;
+            }
+
+            long dropped = mDownloadJobQueue.put(iconId, priority);
+            startWorker();
+            return dropped;
+        }
+    }
 
-            // re-queue as the next job
-            mDownloadJobQueue.add(iconId);
 
-            if (mDownloader == null)
+    /**
+     * Add a prefetch job for the given iconId. This has no effect if the image is already queued or being loaded.
+     *
+     * @param iconId
+     *         The id of the image to prefetch.
+     *
+     * @return The id of an image that has been dropped because the queue was full or <code>-1</code>.
+     */
+    public long addPrefetchJob(long iconId)
+    {
+        synchronized (mDownloadJobQueue)
+        {
+            if (mInFlight.contains(iconId) || mDownloadJobQueue.contains(iconId))
             {
-                scheduleJob();
+                return -1;
             }
+
+            long dropped = mDownloadJobQueue.put(iconId, ImageProxy.PRIORITY_PREFETCH);
+            startWorker();
+            return dropped;
         }
     }
 
 
     /**
-     * Schedule a download job. The last job in the queue will be downloaded next.
+     * Change the priority of a queued job. This has no effect if the image is not queued.
+     *
+     * @param iconId
+     *         The id of the image.
+     * @param priority
+     *         The new priority.
      */
-    private void scheduleJob()
+    public void setJobPriority(long iconId, int priority)
     {
         synchronized (mDownloadJobQueue)
         {
-            if (mDownloadJobQueue.size() > 0)
+            mDownloadJobQueue.setPriority(iconId, priority);
+        }
+    }
+
+
+    /**
+     * Remove the job for the given iconId from the queue. This has no effect if the image is already being loaded.
+     *
+     * @param iconId
+     *         The id of the image that is no longer needed.
+     */
+    public void removeJob(long iconId)
+    {
+        synchronized (mDownloadJobQueue)
+        {
+            if (!mDownloadJobQueue.remove(iconId) && mClaimed.remove(iconId))
             {
-                int last = mDownloadJobQueue.size() - 1;
-                Long iconId = mDownloadJobQueue.get(last);
-                mDownloadJobQueue.remove(last);
-                mDownloader = new ImageLoaderTask(iconId);
-                mDownloader.execute();
+                // the job has been taken by a worker, but hasn't been started yet
+                mInFlight.remove(iconId);
             }
-            else
+        }
+    }
+
+
+    /**
+     * Returns the number of queued jobs with the given priority.
+     *
+     * @param priority
+     *         The priority.
+     *
+     * @return The number of jobs.
+     */
+    public int queueDepth(int priority)
+    {
+        synchronized (mDownloadJobQueue)
+        {
+            return mDownloadJobQueue.depth(priority);
+        }
+    }
+
+
+    /**
+     * Returns the average time jobs with the given priority have been waiting in the queue before a worker took them.
+     *
+     * @param priority
+     *         The priority.
+     *
+     * @return The average wait time in milliseconds.
+     */
+    public long averageWaitTime(int priority)
+    {
+        synchronized (mDownloadJobQueue)
+        {
+            return mDownloadJobQueue.averageWaitTime(priority);
+        }
+    }
+
+
+    /**
+     * Start another worker unless all workers are running. Must be called while holding the lock on {@link #mDownloadJobQueue}.
+     */
+    private void startWorker()
+    {
+        if (mActiveWorkers < mMaxWorkers)
+        {
+            ++mActiveWorkers;
+            mExecutor.execute(new ImageLoaderWorker());
+        }
+    }
+
+
+    /**
+     * Take the job with the highest priority from the queue. Workers take one job at a time, so a job that is requested with a higher priority while a worker
+     * is busy is the next one to be loaded. If the queue is empty the calling worker is expected to terminate.
+     *
+     * @return The id of the image to load, <code>-1</code> if there are no more jobs.
+     */
+    private long nextJob()
+    {
+        synchronized (mDownloadJobQueue)
+        {
+            if (mDownloadJobQueue.isEmpty())
             {
-                mDownloader = null;
+                --mActiveWorkers;
+                return -1;
             }
+
+            long iconId = mDownloadJobQueue.poll();
+            mInFlight.add(iconId);
+            mClaimed.add(iconId);
+            return iconId;
         }
     }
 
 
     /**
-     * An AsyncTask that loads an image from a content provider.
+     * Start a job that has been taken from the queue.
+     *
+     * @param iconId
+     *         The id of the image.
+     *
+     * @return <code>false</code> if the job has been cancelled in the meantime.
+     */
+    private boolean startJob(long iconId)
+    {
+        synchronized (mDownloadJobQueue)
+        {
+            return mClaimed.remove(iconId);
+        }
+    }
+
+
+    /**
+     * Hand the result of a job over to the {@link ImageProxy} on the main thread.
+     *
+     * @param iconId
+     *         The id of the image that has been loaded.
+     * @param result
+     *         The image or <code>null</code> if it couldn't be loaded.
      */
-    private class ImageLoaderTask extends AsyncTask<Void, Integer, Drawable>
+    private void jobDone(long iconId, Drawable result)
     {
-        /**
-         * The id of the image to load.
-         */
-        private long mIconId;
+        jobDone(iconId, result, false);
+    }
 
 
-        public ImageLoaderTask(long iconId)
+    /**
+     * Hand the result of a job over to the {@link ImageProxy} on the main thread.
+     *
+     * @param iconId
+     *         The id of the image that has been loaded.
+     * @param result
+     *         The image or <code>null</code> if it couldn't be loaded.
+     * @param pinned
+     *         Whether the image has been pinned by {@link ImageProxy#sharedImage(long)} and needs to be released after delivery.
+     */
+    private void jobDone(final long iconId, final Drawable result, final boolean pinned)
+    {
+        mHandler.post(new Runnable()
         {
-            mIconId = iconId;
-        }
+            @Override
+            public void run()
+            {
+                synchronized (mDownloadJobQueue)
+                {
+                    mInFlight.remove(iconId);
+                }
+                mImageProxy.imageReady(iconId, result);
+                if (pinned)
+                {
+                    // the image is in the cache or displayed by the listeners now
+                    mImageProxy.releaseImage(result);
+                }
+            }
+        });
+    }
 
 
-        @Override
-        protected Drawable doInBackground(Void... params)
+    /**
+     * Load the image with the given id. This performs the I/O stage and passes the result on to the next stage.
+     *
+     * @param iconId
+     *         The id of the image to load.
+     */
+    private void load(long iconId)
+    {
+        // an image with the same content might have been loaded under a different id
+        Drawable shared = mImageProxy.sharedImage(iconId);
+        if (shared != null)
+        {
+            jobDone(iconId, shared, true);
+            return;
+        }
+
+        // try the memory first, an encoded image only needs to be decoded
+        byte[] data = mImageProxy.cachedEncodedImage(iconId);
+        // encoded images in memory have been stored in the persistent cache when they were read, don't write them again
+        boolean store = data == null;
+        if (data == null)
         {
+            Bitmap bitmap = mImageProxy.loadCachedBitmap(iconId);
+            if (bitmap != null)
+            {
+                // now we know the content, check again
+                shared = mImageProxy.sharedImage(iconId);
+                if (shared != null)
+                {
+                    mImageProxy.discardBitmap(bitmap);
+                    jobDone(iconId, shared, true);
+                    return;
+                }
+                finish(iconId, bitmap, false);
+                return;
+            }
+
             try
             {
-                AssetFileDescriptor afd = CalendarContentContract.Icon.getIcon(mContext, mIconId, true);
-                FileInputStream inputStream = afd.createInputStream();
-                return Drawable.createFromStream(inputStream, null);
+                data = mImageProxy.readImage(iconId, true);
             }
             catch (FileNotFoundException e)
             {
-                Log.e(TAG, "could not load image with id " + mIconId);
-                return null;
+                Log.e(TAG, "could not load image with id " + iconId);
+                jobDone(iconId, null);
+                return;
             }
             catch (IOException e)
             {
-                Log.e(TAG, "could not load image with id " + mIconId);
-                return null;
+                Log.e(TAG, "could not load image with id " + iconId);
+                jobDone(iconId, null);
+                return;
+            }
+
+            shared = mImageProxy.sharedImage(iconId);
+            if (shared != null)
+            {
+                jobDone(iconId, shared, true);
+                return;
             }
         }
+        decode(iconId, data, store);
+    }
 
 
+    /**
+     * Decode the given image in the decode stage.
+     *
+     * @param iconId
+     *         The id of the image.
+     * @param data
+     *         The encoded image.
+     * @param store
+     *         Whether the decoded image needs to be stored in the persistent cache.
+     */
+    private void decode(final long iconId, final byte[] data, final boolean store)
+    {
+        mDecodeExecutor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Bitmap bitmap = mImageProxy.decodeImage(data);
+                if (bitmap == null)
+                {
+                    Log.e(TAG, "could not decode image with id " + iconId);
+                    jobDone(iconId, null);
+                    return;
+                }
+                finish(iconId, bitmap, store);
+            }
+        });
+    }
+
+
+    /**
+     * Prepare the given image for being displayed in the final stage and hand it over to the {@link ImageProxy}.
+     *
+     * @param iconId
+     *         The id of the image.
+     * @param bitmap
+     *         The decoded image.
+     * @param store
+     *         Whether the image needs to be stored in the persistent cache.
+     */
+    private void finish(final long iconId, final Bitmap bitmap, final boolean store)
+    {
+        mFinishExecutor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                jobDone(iconId, mImageProxy.finishImage(iconId, bitmap, store));
+            }
+        });
+    }
+
+
+    /**
+     * A worker that performs the I/O stage of all jobs until the queue is empty.
+     */
+    private class ImageLoaderWorker implements Runnable
+    {
         @Override
-        protected void onPostExecute(Drawable result)
+        public void run()
         {
-            mImageProxy.imageReady(mIconId, result);
-            scheduleJob();
+            long iconId;
+            while ((iconId = nextJob()) >= 0)
+            {
+                if (startJob(iconId))
+                {
+                    load(iconId);
+                }
+            }
         }
-
     }
 
 }
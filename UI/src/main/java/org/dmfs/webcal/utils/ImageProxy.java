@@ -17,36 +17,138 @@
 
 package org.dmfs.webcal.utils;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.AssetFileDescriptor;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 
 import org.dmfs.android.calendarcontent.provider.CalendarContentContract;
+import org.dmfs.webcal.R;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.collection.LruCache;
+import androidx.core.graphics.BitmapCompat;
 
 
 /**
  * A singleton that caches images and takes care of loading them from the content provider if necessary.
+ * <p>
+ * The size of the memory cache depends on the memory class of the device. The cache is trimmed when the system is running low on memory.
+ * </p>
+ * <p>
+ * The memory caches are keyed by a hash of the encoded image, so images with identical content but different ids are decoded once and share one bitmap.
+ * </p>
+ * <p>
+ * Bitmaps that are evicted from the memory cache are returned to a {@link BitmapPool} and reused when other images are loaded. To make sure a bitmap is not
+ * reused while it's still on screen, views need to call {@link #acquireImage(Drawable)} when they start showing an image and {@link
+ * #releaseImage(Drawable)} when they stop showing it.
+ * </p>
  *
  * @author Arjun Naik
  * @author Marten Gajda <marten@dmfs.org>
  */
-public class ImageProxy
+public class ImageProxy implements ComponentCallbacks2
 {
     /**
-     * The maximum size taken by the image cache.
+     * The priority of images that are on screen.
      */
-    private final static int IMAGE_CACHE_SIZE = 1024 * 1024; // 1MB
+    public final static int PRIORITY_VISIBLE = 0;
+
+    /**
+     * The priority of images that are likely to scroll into view soon.
+     */
+    public final static int PRIORITY_PREFETCH = 1;
+
+    /**
+     * The priority of images on pages that are not visible, e.g. neighbouring pages of a ViewPager.
+     */
+    public final static int PRIORITY_OFFSCREEN = 2;
+
+    /**
+     * The fraction of the memory class of the device to use for the image cache.
+     */
+    private final static int IMAGE_CACHE_FRACTION = 16;
+
+    /**
+     * The minimum size of the image cache.
+     */
+    private final static int MIN_IMAGE_CACHE_SIZE = 1024 * 1024; // 1MB
+
+    /**
+     * The fraction of the memory class of the device to use for the cache of encoded images.
+     */
+    private final static int ENCODED_CACHE_FRACTION = 32;
+
+    /**
+     * The minimum size of the cache of encoded images.
+     */
+    private final static int MIN_ENCODED_CACHE_SIZE = 512 * 1024; // 512KB
+
+    /**
+     * The size of the bitmap pool as a fraction of the image cache size.
+     */
+    private final static int BITMAP_POOL_FRACTION = 4;
+
+    /**
+     * The maximum size taken by the persistent cache of decoded images.
+     */
+    private final static long DISK_CACHE_SIZE = 10 * 1024 * 1024; // 10MB
+
+    /**
+     * The maximum age of an image in the persistent cache of decoded images. Older images are loaded from the content provider again, so updated icons show
+     * up eventually, even if they are shown so frequently that they are never evicted.
+     */
+    private final static long DISK_CACHE_MAX_AGE = 7L * 24 * 3600 * 1000; // 7 days
+
+    /**
+     * The name of the directory of the persistent image cache.
+     */
+    private final static String DISK_CACHE_DIR = "icons";
+
+    /**
+     * The time to wait before an image that failed to load is requested again. The time doubles with every subsequent failure.
+     */
+    private final static long FAILURE_BACKOFF_MIN = 30 * 1000; // 30 seconds
+
+    /**
+     * The maximum time to wait before an image that failed to load is requested again.
+     */
+    private final static long FAILURE_BACKOFF_MAX = 60 * 60 * 1000; // 1 hour
+
+    /**
+     * The number of failures to remember before outdated ones are purged.
+     */
+    private final static int FAILURE_PURGE_THRESHOLD = 256;
+
+    /**
+     * The name of the file that contains the ids of the icons shown at the beginning of the previous session.
+     */
+    private final static String HOT_ICON_MANIFEST = "hot_icons";
+
+    /**
+     * The time span at the beginning of a session in which the shown icons are recorded in the hot icon manifest.
+     */
+    private final static int HOT_ICON_RECORDING_TIME = 5000; // ms
 
     /**
      * The one and only instance of the {@link ImageProxy}.
@@ -54,9 +156,46 @@ public class ImageProxy
     private static ImageProxy mInstance;
 
     /**
-     * The actual cache for the images.
+     * The actual cache for the images, mapped by their content hash.
+     */
+    private ImageCache mImageCache;
+
+    /**
+     * The content hashes of the images, mapped by image id. Many images with different ids have the same content, all caches in memory are keyed by the
+     * content hash, so identical images are decoded and stored only once.
+     */
+    private final HashMap<Long, Long> mContentHashes = new HashMap<Long, Long>(256);
+
+    /**
+     * The number of bytes that have been saved by sharing images with identical content.
+     */
+    private long mSharedBytes;
+
+    /**
+     * A cache for the encoded images, mapped by their content hash. Encoded images take much less space than decoded ones, so this cache can hold many more images than {@link
+     * #mImageCache}. A miss in {@link #mImageCache} that hits this cache only costs a decode.
+     */
+    private LruCache<Long, byte[]> mEncodedImageCache;
+
+    /**
+     * The pool of bitmaps that have been evicted from {@link #mImageCache}.
+     */
+    private BitmapPool mBitmapPool;
+
+    /**
+     * The bitmaps that are currently displayed and the number of views showing each of them.
+     */
+    private final Map<Bitmap, int[]> mDisplayedBitmaps = new WeakHashMap<Bitmap, int[]>(64);
+
+    /**
+     * The bitmaps that have been evicted while still being displayed. They are returned to the pool once they have been released.
+     */
+    private final Set<Bitmap> mEvictedBitmaps = Collections.newSetFromMap(new WeakHashMap<Bitmap, Boolean>(16));
+
+    /**
+     * The persistent cache for decoded images.
      */
-    private ImageCache mImageCache = new ImageCache(IMAGE_CACHE_SIZE);
+    private IconDiskCache mDiskCache;
 
     /**
      * The {@link ImageLoaderQueue} to load the images.
@@ -64,15 +203,69 @@ public class ImageProxy
     private ImageLoaderQueue mLoader;
 
     /**
-     * {@link Map} of image ids to {@link Set}s of {@link ImageAvailableListener}s for that specific image.
+     * {@link Map} of image ids to the {@link ImageAvailableListener}s waiting for that specific image and the priority each of them requested it with. The
+     * job of an image is queued with the highest priority of its listeners.
+     */
+    private HashMap<Long, Map<ImageAvailableListener, Integer>> mJobWaitQueue = new HashMap<Long, Map<ImageAvailableListener, Integer>>();
+
+    /**
+     * The images that failed to load recently, mapped by their ids.
+     */
+    private final HashMap<Long, LoadFailure> mFailures = new HashMap<Long, LoadFailure>(16);
+
+    private int mFailureCount;
+    private int mSuppressedRequestCount;
+
+    /**
+     * The hit and miss counts of the memory caches. {@link LruCache} counts every lookup, including the ones the loader makes internally, so we only count
+     * the lookups of actual requests ourselves.
      */
-    private HashMap<Long, Set<WeakReference<ImageAvailableListener>>> mJobWaitQueue = new HashMap<Long, Set<WeakReference<ImageAvailableListener>>>();
+    private final AtomicInteger mCacheHitCount = new AtomicInteger();
+    private final AtomicInteger mCacheMissCount = new AtomicInteger();
+    private final AtomicInteger mEncodedCacheHitCount = new AtomicInteger();
+    private final AtomicInteger mEncodedCacheMissCount = new AtomicInteger();
 
     /**
      * The application {@link Context}.
      */
     private Context mAppContext;
 
+    /**
+     * The size in pixels that images are decoded to.
+     */
+    private int mImageSize;
+
+    /**
+     * The manifest of the icons that have been shown at the beginning of the previous session.
+     */
+    private HotIconManifest mHotIconManifest;
+
+    /**
+     * The ids of the icons shown at the beginning of this session. <code>null</code> once the recording has been finished. Only accessed on the main thread.
+     */
+    private long[] mHotIcons = new long[HotIconManifest.MAX_ICONS];
+    private int mHotIconCount;
+
+    /**
+     * The {@link Executor} to read and write the hot icon manifest.
+     */
+    private final Executor mManifestExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The {@link SystemClock#elapsedRealtime()} when this session started.
+     */
+    private final long mSessionStart = SystemClock.elapsedRealtime();
+
+    /**
+     * The time in milliseconds it took to show the first icon of this session or <code>-1</code> if no icon has been shown yet.
+     */
+    private long mTimeToFirstIcon = -1;
+
+    /**
+     * Whether {@link #getImage(long, ImageAvailableListener)} should only check the memory cache and leave any I/O to the {@link ImageLoaderQueue}.
+     */
+    private boolean mAsyncLoading;
+
 
     /**
      * A listener that get notified when an image has been loaded.
@@ -101,16 +294,60 @@ public class ImageProxy
     }
 
 
-    private ImageProxy(Context c)
+    @VisibleForTesting
+    ImageProxy(Context c)
     {
         mAppContext = c.getApplicationContext();
-        mLoader = new ImageLoaderQueue(c, this);
+        int memoryClass = ((ActivityManager) mAppContext.getSystemService(Context.ACTIVITY_SERVICE)).getMemoryClass();
+        mImageCache = new ImageCache(Math.max(MIN_IMAGE_CACHE_SIZE, memoryClass * 1024 * 1024 / IMAGE_CACHE_FRACTION));
+        mBitmapPool = new BitmapPool(mImageCache.maxSize() / BITMAP_POOL_FRACTION);
+        mEncodedImageCache = new LruCache<Long, byte[]>(Math.max(MIN_ENCODED_CACHE_SIZE, memoryClass * 1024 * 1024 / ENCODED_CACHE_FRACTION))
+        {
+            @Override
+            protected int sizeOf(Long key, byte[] value)
+            {
+                return value.length;
+            }
+        };
+        mAppContext.registerComponentCallbacks(this);
+        mImageSize = mAppContext.getResources().getDimensionPixelSize(R.dimen.list_item_icon_size);
+        mAsyncLoading = mAppContext.getResources().getBoolean(R.bool.org_dmfs_webcal_async_icon_loading);
+        mDiskCache = new IconDiskCache(new File(mAppContext.getCacheDir(), DISK_CACHE_DIR), DISK_CACHE_SIZE, DISK_CACHE_MAX_AGE, mBitmapPool);
+        mLoader = new ImageLoaderQueue(this, mAppContext.getResources().getInteger(R.integer.org_dmfs_webcal_image_loader_workers),
+                mAppContext.getResources().getInteger(R.integer.org_dmfs_webcal_image_loader_queue_limit));
+        mHotIconManifest = new HotIconManifest(new File(mAppContext.getCacheDir(), HOT_ICON_MANIFEST));
+
+        // warm up the cache with the icons that have been shown first in the previous session
+        mManifestExecutor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (long iconId : mHotIconManifest.read())
+                {
+                    prefetchImage(iconId);
+                }
+            }
+        });
+
+        new Handler(Looper.getMainLooper()).postDelayed(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                saveHotIcons();
+            }
+        }, HOT_ICON_RECORDING_TIME);
     }
 
 
     /**
-     * Return the image with then given id. If the icon is not present in the memory or filesystem cache this method returns <code>null</code>. The caller is
-     * notified via the given {@link ImageAvailableListener} when the image has been loaded.
+     * Return the image with then given id. If the icon is not present in the memory cache, the persistent cache of decoded images or the filesystem cache
+     * this method returns <code>null</code>. The caller is notified via the given {@link ImageAvailableListener} when the image has been loaded.
+     * <p>
+     * If <code>org_dmfs_webcal_async_icon_loading</code> is set, this method only checks the memory cache and never touches the storage, so it's safe to
+     * call it from the main thread while binding views.
+     * </p>
      *
      * @param iconId
      *         The id of the icon to load.
@@ -120,133 +357,1050 @@ public class ImageProxy
      * @return A {@link Drawable} or null of the icon is loaded asynchronously or the id is invalid.
      */
     public Drawable getImage(long iconId, ImageAvailableListener callback)
+    {
+        return getImage(iconId, callback, PRIORITY_VISIBLE);
+    }
+
+
+    /**
+     * Return the image with then given id. Works like {@link #getImage(long, ImageAvailableListener)}, but loads the image with the given priority if it's
+     * not in the cache.
+     *
+     * @param iconId
+     *         The id of the icon to load.
+     * @param callback
+     *         The {@link ImageAvailableListener} to notify when the icon has been loaded.
+     * @param priority
+     *         One of {@link #PRIORITY_VISIBLE}, {@link #PRIORITY_PREFETCH} or {@link #PRIORITY_OFFSCREEN}.
+     *
+     * @return A {@link Drawable} or null of the icon is loaded asynchronously or the id is invalid.
+     */
+    public Drawable getImage(long iconId, ImageAvailableListener callback, int priority)
     {
         if (iconId == -1)
         {
             return null;
         }
 
-        Drawable iconDrawable = mImageCache.get(iconId);
-        if (iconDrawable == null)
+        if (priority == PRIORITY_VISIBLE)
         {
-            try
+            recordHotIcon(iconId);
+        }
+
+        Drawable iconDrawable = cachedImage(iconId);
+        (iconDrawable == null ? mCacheMissCount : mCacheHitCount).incrementAndGet();
+        if (iconDrawable == null && isBackingOff(iconId))
+        {
+            // this image failed to load recently, don't try again yet
+            synchronized (mFailures)
             {
-                AssetFileDescriptor afd = CalendarContentContract.Icon.getIcon(mAppContext, iconId, false);
-                FileInputStream inputStream = afd.createInputStream();
-                iconDrawable = Drawable.createFromStream(inputStream, null);
-                if (iconDrawable != null)
-                {
-                    mImageCache.put(iconId, iconDrawable);
-                }
+                ++mSuppressedRequestCount;
             }
-            catch (FileNotFoundException e)
+        }
+        else if (iconDrawable == null && mAsyncLoading)
+        {
+            // leave the other caches to the loader
+            registerImageRequest(iconId, callback, priority);
+        }
+        else if (iconDrawable == null)
+        {
+            // try the persistent cache first, this doesn't need to decode anything
+            iconDrawable = loadCachedImage(iconId);
+            if (iconDrawable != null)
             {
-                registerImageRequest(iconId, callback);
+                cacheImage(iconId, iconDrawable);
             }
-            catch (IOException e)
+            else
             {
-                registerImageRequest(iconId, callback);
+                try
+                {
+                    iconDrawable = loadImage(iconId, false);
+                    if (iconDrawable != null)
+                    {
+                        cacheImage(iconId, iconDrawable);
+                    }
+                }
+                catch (FileNotFoundException e)
+                {
+                    registerImageRequest(iconId, callback, priority);
+                }
+                catch (IOException e)
+                {
+                    registerImageRequest(iconId, callback, priority);
+                }
             }
         }
+
+        if (iconDrawable != null)
+        {
+            iconShown();
+        }
         return iconDrawable;
     }
 
 
     /**
-     * Registers an image for asynchronous loading.
+     * Record the given icon in the hot icon manifest if the session has just started.
      *
      * @param iconId
-     *         The icon id to load.
-     * @param callback
-     *         The {@link ImageAvailableListener} to notify when the image has been loaded.
+     *         The id of an icon that is about to be shown.
      */
-    private void registerImageRequest(long iconId, ImageAvailableListener callback)
+    private void recordHotIcon(long iconId)
     {
-        synchronized (mJobWaitQueue)
+        long[] hotIcons = mHotIcons;
+        if (hotIcons == null || mHotIconCount == hotIcons.length)
         {
-            if (mJobWaitQueue.containsKey(iconId))
+            return;
+        }
+
+        for (int i = 0; i < mHotIconCount; ++i)
+        {
+            if (hotIcons[i] == iconId)
             {
-                Set<WeakReference<ImageAvailableListener>> listeners = mJobWaitQueue.get(iconId);
-                listeners.add(new WeakReference<ImageProxy.ImageAvailableListener>(callback));
+                return;
             }
-            else
+        }
+        hotIcons[mHotIconCount++] = iconId;
+    }
+
+
+    /**
+     * Stop recording hot icons and write the manifest for the next session.
+     */
+    private void saveHotIcons()
+    {
+        final long[] hotIcons = mHotIcons;
+        final int count = mHotIconCount;
+        mHotIcons = null;
+        if (count == 0)
+        {
+            // nothing has been shown, keep the previous manifest
+            return;
+        }
+
+        mManifestExecutor.execute(new Runnable()
+        {
+            @Override
+            public void run()
             {
-                Set<WeakReference<ImageAvailableListener>> listeners = new HashSet<WeakReference<ImageAvailableListener>>();
-                listeners.add(new WeakReference<ImageProxy.ImageAvailableListener>(callback));
-                mJobWaitQueue.put(iconId, listeners);
-                mLoader.addJob(iconId);
+                mHotIconManifest.write(hotIcons, count);
             }
+        });
+    }
+
+
+    /**
+     * Take note that an icon has been shown.
+     */
+    private void iconShown()
+    {
+        if (mTimeToFirstIcon < 0)
+        {
+            mTimeToFirstIcon = SystemClock.elapsedRealtime() - mSessionStart;
         }
     }
 
 
     /**
-     * Notify the {@link ImageProxy} that an image has been loaded.
+     * Load the image with the given id in the background if it's not in the memory cache yet. Prefetch jobs are executed after all regular requests.
      *
      * @param iconId
-     *         The id of the image that has been loaded.
-     * @param result
-     *         The image.
+     *         The id of the image that's likely to be requested soon.
      */
-    void imageReady(long iconId, Drawable result)
+    public void prefetchImage(long iconId)
     {
-        if (result == null)
+        if (iconId == -1 || cachedImage(iconId) != null || isBackingOff(iconId))
         {
             return;
         }
 
-        synchronized (mImageCache)
+        synchronized (mJobWaitQueue)
         {
-            // put the icon into the cache
-            mImageCache.put(iconId, result);
+            if (!mJobWaitQueue.containsKey(iconId))
+            {
+                jobDropped(mLoader.addPrefetchJob(iconId));
+            }
         }
+    }
 
-        Set<WeakReference<ImageAvailableListener>> listeners = null;
-        synchronized (mJobWaitQueue)
+
+    /**
+     * Change the priority of a pending image request, e.g. when the page showing the image becomes visible or invisible. The same image may be requested by
+     * other listeners, so the job is only moved to a lower priority if none of them has requested it with a higher priority. This has no effect if the given
+     * listener is not waiting for the image.
+     *
+     * @param iconId
+     *         The id of the image.
+     * @param callback
+     *         The {@link ImageAvailableListener} that has been passed to {@link #getImage(long, ImageAvailableListener, int)}.
+     * @param priority
+     *         One of {@link #PRIORITY_VISIBLE}, {@link #PRIORITY_PREFETCH} or {@link #PRIORITY_OFFSCREEN}.
+     */
+    public void setImagePriority(long iconId, ImageAvailableListener callback, int priority)
+    {
+        if (iconId == -1)
         {
-            listeners = mJobWaitQueue.get(iconId);
-            // all listeners will be notified now, so remove them
-            mJobWaitQueue.remove(iconId);
+            return;
         }
 
-        if (listeners != null)
+        synchronized (mJobWaitQueue)
         {
-            // notify listeners
-            for (WeakReference<ImageAvailableListener> listenerRef : listeners)
+            Map<ImageAvailableListener, Integer> listeners = mJobWaitQueue.get(iconId);
+            if (listeners != null && listeners.containsKey(callback))
             {
-                ImageAvailableListener listener = listenerRef.get();
-                if (listener != null)
-                {
-                    listener.imageAvailable(iconId, result);
-                }
+                listeners.put(callback, priority);
+                mLoader.setJobPriority(iconId, requestPriority(listeners));
             }
         }
     }
 
 
     /**
-     * A cache for the images.
+     * Load the image with the given id from the persistent cache of decoded images.
+     *
+     * @param iconId
+     *         The id of the image to load.
+     *
+     * @return The image or <code>null</code> if it's not in the cache.
      */
-    class ImageCache extends LruCache<Long, Drawable>
+    Drawable loadCachedImage(long iconId)
     {
+        Bitmap bitmap = loadCachedBitmap(iconId);
+        return bitmap == null ? null : finishImage(iconId, bitmap, false);
+    }
 
-        /**
-         * Instantiate a new ImageCache with the given capacity.
-         *
-         * @param maxSize
-         *         The maximum number of bytes the cache should use.
-         */
-        public ImageCache(int maxSize)
+
+    /**
+     * Load the image with the given id from the content provider and decode it straight to the size of the image views. The encoded image is stored in the
+     * cache of encoded images, the decoded image is stored in the persistent cache.
+     *
+     * @param iconId
+     *         The id of the image to load.
+     * @param blocking
+     *         Whether to wait for the image to be downloaded if it's not available yet.
+     *
+     * @return The image or <code>null</code> if the image couldn't be decoded.
+     *
+     * @throws FileNotFoundException
+     *         if the image is not available (yet).
+     * @throws IOException
+     *         if the image could not be read.
+     */
+    Drawable loadImage(long iconId, boolean blocking) throws IOException
+    {
+        Bitmap bitmap = decodeImage(readImage(iconId, blocking));
+        return bitmap == null ? null : finishImage(iconId, bitmap, true);
+    }
+
+
+    /**
+     * Returns the encoded image with the given id from the cache of encoded images. This doesn't perform any I/O.
+     *
+     * @param iconId
+     *         The id of the image.
+     *
+     * @return The encoded image or <code>null</code> if it's not in the cache.
+     */
+    byte[] cachedEncodedImage(long iconId)
+    {
+        Long contentHash = contentHash(iconId);
+        byte[] result = contentHash == null ? null : mEncodedImageCache.get(contentHash);
+        (result == null ? mEncodedCacheMissCount : mEncodedCacheHitCount).incrementAndGet();
+        return result;
+    }
+
+
+    /**
+     * Returns a decoded image with the same content as the image with the given id, if any is in the memory cache. This doesn't perform any I/O.
+     * <p>
+     * The returned image is still owned by the memory cache, so it's pinned like a displayed image. Otherwise its bitmap could be reused when it's evicted
+     * before it has been delivered. The caller must call {@link #releaseImage(Drawable)} once the image has been handed over to the main thread.
+     * </p>
+     *
+     * @param iconId
+     *         The id of the image.
+     *
+     * @return The pinned image or <code>null</code> if no image with the same content is in the memory cache.
+     */
+    Drawable sharedImage(long iconId)
+    {
+        Drawable result;
+        // look up and pin the image atomically, an eviction in between would return the bitmap to the pool
+        synchronized (mDisplayedBitmaps)
         {
-            super(maxSize);
+            result = cachedImage(iconId);
+            acquireImage(result);
+        }
+        if (result instanceof BitmapDrawable && ((BitmapDrawable) result).getBitmap() != null)
+        {
+            synchronized (mContentHashes)
+            {
+                mSharedBytes += BitmapCompat.getAllocationByteCount(((BitmapDrawable) result).getBitmap());
+            }
         }
+        return result;
+    }
 
 
-        @Override
-        protected int sizeOf(Long key, Drawable value)
+    /**
+     * Load the decoded image with the given id from the persistent cache of decoded images.
+     *
+     * @param iconId
+     *         The id of the image to load.
+     *
+     * @return The {@link Bitmap} or <code>null</code> if it's not in the cache.
+     */
+    Bitmap loadCachedBitmap(long iconId)
+    {
+        IconDiskCache.Entry entry = mDiskCache.get(iconId);
+        if (entry == null)
         {
-            // assume all images are 32 bit uncompressed - this is just a rough estimation
-            return Math.abs(value.getIntrinsicHeight()) * Math.abs(value.getIntrinsicWidth()) * 4;
+            return null;
+        }
+        setContentHash(iconId, entry.contentHash);
+        return entry.bitmap;
+    }
+
+
+    /**
+     * Return a decoded image that is not going to be used to the bitmap pool.
+     *
+     * @param bitmap
+     *         The unused {@link Bitmap}.
+     */
+    void discardBitmap(Bitmap bitmap)
+    {
+        mBitmapPool.put(bitmap);
+    }
+
+
+    /**
+     * Read the encoded image with the given id from the content provider and store it in the cache of encoded images.
+     *
+     * @param iconId
+     *         The id of the image to load.
+     * @param blocking
+     *         Whether to wait for the image to be downloaded if it's not available yet.
+     *
+     * @return The encoded image.
+     *
+     * @throws FileNotFoundException
+     *         if the image is not available (yet).
+     * @throws IOException
+     *         if the image could not be read.
+     */
+    byte[] readImage(long iconId, boolean blocking) throws IOException
+    {
+        byte[] data = BitmapUtils.readFully(openImage(iconId, blocking));
+        long contentHash = contentHash(data);
+        setContentHash(iconId, contentHash);
+        // put() returns the previous value without counting a lookup, the content is the same in either case
+        if (mEncodedImageCache.put(contentHash, data) != null)
+        {
+            // we already have the same image under a different id
+            synchronized (mContentHashes)
+            {
+                mSharedBytes += data.length;
+            }
+        }
+        return data;
+    }
+
+
+    /**
+     * Open the encoded image with the given id in the content provider.
+     *
+     * @param iconId
+     *         The id of the image to open.
+     * @param blocking
+     *         Whether to wait for the image to be downloaded if it's not available yet.
+     *
+     * @return An {@link AssetFileDescriptor} of the encoded image.
+     *
+     * @throws FileNotFoundException
+     *         if the image is not available (yet).
+     */
+    @VisibleForTesting
+    AssetFileDescriptor openImage(long iconId, boolean blocking) throws FileNotFoundException
+    {
+        return CalendarContentContract.Icon.getIcon(mAppContext, iconId, blocking);
+    }
+
+
+    /**
+     * Decode the given image data to the size of the image views.
+     *
+     * @param data
+     *         The encoded image.
+     *
+     * @return The {@link Bitmap} or <code>null</code> if the image couldn't be decoded.
+     */
+    Bitmap decodeImage(byte[] data)
+    {
+        return BitmapUtils.decodeScaledBitmap(data, mImageSize, mImageSize, mAppContext.getResources().getDisplayMetrics(), mBitmapPool);
+    }
+
+
+    /**
+     * Prepare a decoded image for being displayed. This stores the image in the persistent cache (if requested) and warms up the bitmap for drawing, so none
+     * of this needs to happen on the main thread.
+     *
+     * @param iconId
+     *         The id of the image.
+     * @param bitmap
+     *         The decoded image.
+     * @param store
+     *         Whether to store the image in the persistent cache of decoded images.
+     *
+     * @return The {@link Drawable} to display.
+     */
+    Drawable finishImage(long iconId, Bitmap bitmap, boolean store)
+    {
+        Long contentHash = contentHash(iconId);
+        if (store && contentHash != null)
+        {
+            mDiskCache.put(iconId, contentHash, bitmap);
+        }
+        bitmap.prepareToDraw();
+        return new BitmapDrawable(mAppContext.getResources(), bitmap);
+    }
+
+
+    /**
+     * Returns the image with the given id from the memory cache.
+     *
+     * @param iconId
+     *         The id of the image.
+     *
+     * @return The image or <code>null</code> if it's not in the memory cache.
+     */
+    private Drawable cachedImage(long iconId)
+    {
+        Long contentHash = contentHash(iconId);
+        return contentHash == null ? null : mImageCache.get(contentHash);
+    }
+
+
+    /**
+     * Put the given image into the memory cache. Images with unknown content are not cached.
+     *
+     * @param iconId
+     *         The id of the image.
+     * @param image
+     *         The image.
+     */
+    private void cacheImage(long iconId, Drawable image)
+    {
+        Long contentHash = contentHash(iconId);
+        if (contentHash != null)
+        {
+            if (image instanceof BitmapDrawable && ((BitmapDrawable) image).getBitmap() != null)
+            {
+                synchronized (mDisplayedBitmaps)
+                {
+                    // a shared image might have been evicted while it was being delivered, it's owned by the cache again now
+                    mEvictedBitmaps.remove(((BitmapDrawable) image).getBitmap());
+                }
+            }
+            mImageCache.put(contentHash, image);
+        }
+    }
+
+
+    /**
+     * Returns the content hash of the image with the given id, if known.
+     */
+    private Long contentHash(long iconId)
+    {
+        synchronized (mContentHashes)
+        {
+            return mContentHashes.get(iconId);
+        }
+    }
+
+
+    private void setContentHash(long iconId, long contentHash)
+    {
+        synchronized (mContentHashes)
+        {
+            mContentHashes.put(iconId, contentHash);
+        }
+    }
+
+
+    /**
+     * Calculates the 64 bit FNV-1a hash of the given data.
+     */
+    private static long contentHash(byte[] data)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data)
+        {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+
+    /**
+     * Registers an image for asynchronous loading.
+     *
+     * @param iconId
+     *         The icon id to load.
+     * @param callback
+     *         The {@link ImageAvailableListener} to notify when the image has been loaded.
+     * @param priority
+     *         The priority of the request.
+     */
+    private void registerImageRequest(long iconId, ImageAvailableListener callback, int priority)
+    {
+        synchronized (mJobWaitQueue)
+        {
+            Map<ImageAvailableListener, Integer> listeners = mJobWaitQueue.get(iconId);
+            if (listeners == null)
+            {
+                // the listeners are held weakly, a view that has been garbage collected doesn't need its image anymore
+                listeners = new WeakHashMap<ImageAvailableListener, Integer>(4);
+                mJobWaitQueue.put(iconId, listeners);
+            }
+            listeners.put(callback, priority);
+            // (re-)queue the job, this moves an existing job to the highest priority any listener has requested
+            jobDropped(mLoader.addJob(iconId, requestPriority(listeners)));
+        }
+    }
+
+
+    /**
+     * Returns the highest priority the given listeners have requested an image with. Must be called while holding the lock on {@link #mJobWaitQueue}.
+     *
+     * @param listeners
+     *         The listeners waiting for an image and their priorities.
+     *
+     * @return The priority to load the image with.
+     */
+    private static int requestPriority(Map<ImageAvailableListener, Integer> listeners)
+    {
+        int result = PRIORITY_OFFSCREEN;
+        for (Integer priority : listeners.values())
+        {
+            result = Math.min(result, priority);
+        }
+        return result;
+    }
+
+
+    /**
+     * Forget the listeners of an image whose job has been dropped from the full loader queue. They will request the image again when they are bound the
+     * next time. Must be called while holding the lock on {@link #mJobWaitQueue}.
+     *
+     * @param iconId
+     *         The id of the dropped image or <code>-1</code>.
+     */
+    private void jobDropped(long iconId)
+    {
+        if (iconId != -1)
+        {
+            mJobWaitQueue.remove(iconId);
+        }
+    }
+
+
+    /**
+     * Cancel a request for an image that has been registered by {@link #getImage(long, ImageAvailableListener)}. The given listener won't be notified about
+     * this image anymore. If no other listener is waiting for the image, the job is removed from the loader queue.
+     *
+     * @param iconId
+     *         The id of the image that is no longer needed.
+     * @param callback
+     *         The {@link ImageAvailableListener} that has been passed to {@link #getImage(long, ImageAvailableListener)}.
+     */
+    public void cancelImageRequest(long iconId, ImageAvailableListener callback)
+    {
+        if (iconId == -1)
+        {
+            return;
+        }
+
+        synchronized (mJobWaitQueue)
+        {
+            Map<ImageAvailableListener, Integer> listeners = mJobWaitQueue.get(iconId);
+            if (listeners == null || listeners.remove(callback) == null)
+            {
+                return;
+            }
+
+            if (listeners.isEmpty())
+            {
+                mJobWaitQueue.remove(iconId);
+                mLoader.removeJob(iconId);
+            }
+            else
+            {
+                // the remaining listeners might need the image less urgently
+                mLoader.setJobPriority(iconId, requestPriority(listeners));
+            }
+        }
+    }
+
+
+    /**
+     * Notify the {@link ImageProxy} that an image has been loaded.
+     *
+     * @param iconId
+     *         The id of the image that has been loaded.
+     * @param result
+     *         The image or <code>null</code> if it couldn't be loaded.
+     */
+    void imageReady(long iconId, Drawable result)
+    {
+        if (result == null)
+        {
+            imageFailed(iconId);
+            return;
+        }
+
+        synchronized (mFailures)
+        {
+            mFailures.remove(iconId);
+        }
+
+        // put the icon into the cache
+        cacheImage(iconId, result);
+
+        Map<ImageAvailableListener, Integer> listeners = null;
+        synchronized (mJobWaitQueue)
+        {
+            listeners = mJobWaitQueue.get(iconId);
+            // all listeners will be notified now, so remove them
+            mJobWaitQueue.remove(iconId);
+        }
+
+        if (listeners != null)
+        {
+            // notify listeners
+            for (ImageAvailableListener listener : listeners.keySet())
+            {
+                // the key set of a WeakHashMap skips listeners that have been garbage collected
+                listener.imageAvailable(iconId, result);
+                iconShown();
+            }
+        }
+    }
+
+
+    /**
+     * Remember that the image with the given id couldn't be loaded, so it's not requested again before its back-off time has elapsed. Any listeners waiting
+     * for the image are dropped, they will request it again when they are bound the next time.
+     *
+     * @param iconId
+     *         The id of the image that failed to load.
+     */
+    private void imageFailed(long iconId)
+    {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (mFailures)
+        {
+            ++mFailureCount;
+            if (mFailures.size() >= FAILURE_PURGE_THRESHOLD)
+            {
+                purgeFailures(now);
+            }
+
+            LoadFailure failure = mFailures.get(iconId);
+            if (failure == null || now > failure.retryTime + FAILURE_BACKOFF_MAX)
+            {
+                // first failure or the last one is long ago, start over
+                failure = new LoadFailure();
+                mFailures.put(iconId, failure);
+            }
+            ++failure.count;
+            failure.retryTime = now + Math.min(FAILURE_BACKOFF_MIN << Math.min(failure.count - 1, 16), FAILURE_BACKOFF_MAX);
+        }
+
+        synchronized (mJobWaitQueue)
+        {
+            mJobWaitQueue.remove(iconId);
+        }
+    }
+
+
+    /**
+     * Forget all failures that are too old to have any effect. Must be called while holding the lock on {@link #mFailures}.
+     *
+     * @param now
+     *         The current {@link SystemClock#elapsedRealtime()}.
+     */
+    private void purgeFailures(long now)
+    {
+        Iterator<LoadFailure> iterator = mFailures.values().iterator();
+        while (iterator.hasNext())
+        {
+            if (now > iterator.next().retryTime + FAILURE_BACKOFF_MAX)
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Returns whether the image with the given id failed to load recently and should not be requested yet.
+     *
+     * @param iconId
+     *         The id of an image.
+     *
+     * @return <code>true</code> if the image must not be requested yet.
+     */
+    private boolean isBackingOff(long iconId)
+    {
+        synchronized (mFailures)
+        {
+            if (mFailures.isEmpty())
+            {
+                return false;
+            }
+            LoadFailure failure = mFailures.get(iconId);
+            return failure != null && SystemClock.elapsedRealtime() < failure.retryTime;
+        }
+    }
+
+
+    /**
+     * Notify the {@link ImageProxy} that the given image is being displayed. The underlying bitmap won't be reused until {@link #releaseImage(Drawable)} has
+     * been called for each call to this method.
+     *
+     * @param drawable
+     *         The {@link Drawable} that is being displayed, may be <code>null</code>.
+     */
+    public void acquireImage(Drawable drawable)
+    {
+        if (!(drawable instanceof BitmapDrawable) || ((BitmapDrawable) drawable).getBitmap() == null)
+        {
+            return;
+        }
+
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        synchronized (mDisplayedBitmaps)
+        {
+            int[] count = mDisplayedBitmaps.get(bitmap);
+            if (count == null)
+            {
+                mDisplayedBitmaps.put(bitmap, new int[] { 1 });
+            }
+            else
+            {
+                ++count[0];
+            }
+        }
+    }
+
+
+    /**
+     * Notify the {@link ImageProxy} that the given image is no longer displayed by the caller.
+     *
+     * @param drawable
+     *         The {@link Drawable} that has been passed to {@link #acquireImage(Drawable)}, may be <code>null</code>.
+     */
+    public void releaseImage(Drawable drawable)
+    {
+        if (!(drawable instanceof BitmapDrawable) || ((BitmapDrawable) drawable).getBitmap() == null)
+        {
+            return;
+        }
+
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        synchronized (mDisplayedBitmaps)
+        {
+            int[] count = mDisplayedBitmaps.get(bitmap);
+            if (count != null && --count[0] <= 0)
+            {
+                mDisplayedBitmaps.remove(bitmap);
+                if (mEvictedBitmaps.remove(bitmap))
+                {
+                    // the bitmap has been evicted in the meantime, now it can be reused
+                    mBitmapPool.put(bitmap);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Return the bitmap of a drawable that has been removed from the memory cache to the pool, unless it's still being displayed.
+     *
+     * @param drawable
+     *         The {@link Drawable} that has been removed from the cache.
+     */
+    private void recycleImage(Drawable drawable)
+    {
+        if (!(drawable instanceof BitmapDrawable) || ((BitmapDrawable) drawable).getBitmap() == null)
+        {
+            return;
+        }
+
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        synchronized (mDisplayedBitmaps)
+        {
+            if (mDisplayedBitmaps.containsKey(bitmap))
+            {
+                mEvictedBitmaps.add(bitmap);
+            }
+            else
+            {
+                mBitmapPool.put(bitmap);
+            }
+        }
+    }
+
+
+    @Override
+    public void onTrimMemory(int level)
+    {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL)
+        {
+            // we're about to be killed or the system is seriously low on memory, free everything we can
+            mImageCache.evictAll();
+            mEncodedImageCache.evictAll();
+            mBitmapPool.clear();
+        }
+        else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW)
+        {
+            mImageCache.trimToSize(mImageCache.maxSize() / 2);
+            mEncodedImageCache.trimToSize(mEncodedImageCache.maxSize() / 2);
+            mBitmapPool.clear();
+        }
+    }
+
+
+    @Override
+    public void onLowMemory()
+    {
+        mImageCache.evictAll();
+        mEncodedImageCache.evictAll();
+        mBitmapPool.clear();
+    }
+
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig)
+    {
+        // nothing to do
+    }
+
+
+    /**
+     * Returns the number of requested images that were found in the memory cache.
+     *
+     * @return The number of memory cache hits.
+     */
+    public int cacheHitCount()
+    {
+        return mCacheHitCount.get();
+    }
+
+
+    /**
+     * Returns the number of requested images that were not found in the memory cache.
+     *
+     * @return The number of memory cache misses.
+     */
+    public int cacheMissCount()
+    {
+        return mCacheMissCount.get();
+    }
+
+
+    /**
+     * Returns the number of images that have been evicted from the memory cache.
+     *
+     * @return The number of evictions.
+     */
+    public int cacheEvictionCount()
+    {
+        return mImageCache.evictionCount();
+    }
+
+
+    /**
+     * Returns the number of times an image that was not in the memory cache was found in the cache of encoded images.
+     *
+     * @return The number of encoded image cache hits.
+     */
+    public int encodedCacheHitCount()
+    {
+        return mEncodedCacheHitCount.get();
+    }
+
+
+    /**
+     * Returns the number of times an image was neither found in the memory cache nor in the cache of encoded images.
+     *
+     * @return The number of encoded image cache misses.
+     */
+    public int encodedCacheMissCount()
+    {
+        return mEncodedCacheMissCount.get();
+    }
+
+
+    /**
+     * Returns the number of bitmap allocations that have been avoided by reusing bitmaps of evicted images.
+     *
+     * @return The number of reused bitmaps.
+     */
+    public int bitmapPoolHitCount()
+    {
+        return mBitmapPool.hitCount();
+    }
+
+
+    /**
+     * Returns the number of bitmaps that had to be allocated because no reusable bitmap was available.
+     *
+     * @return The number of new bitmaps.
+     */
+    public int bitmapPoolMissCount()
+    {
+        return mBitmapPool.missCount();
+    }
+
+
+    /**
+     * Returns the time it took from the creation of the {@link ImageProxy} until the first icon has been shown.
+     *
+     * @return The time in milliseconds or <code>-1</code> if no icon has been shown yet.
+     */
+    public long timeToFirstIcon()
+    {
+        return mTimeToFirstIcon;
+    }
+
+
+    /**
+     * Returns the number of bytes that have been saved by sharing encoded and decoded images with identical content between different image ids.
+     *
+     * @return The number of saved bytes.
+     */
+    public long sharedImageBytes()
+    {
+        synchronized (mContentHashes)
+        {
+            return mSharedBytes;
+        }
+    }
+
+
+    /**
+     * Returns the number of queued images with the given priority.
+     *
+     * @param priority
+     *         One of {@link #PRIORITY_VISIBLE}, {@link #PRIORITY_PREFETCH} or {@link #PRIORITY_OFFSCREEN}.
+     *
+     * @return The number of queued images.
+     */
+    public int queueDepth(int priority)
+    {
+        return mLoader.queueDepth(priority);
+    }
+
+
+    /**
+     * Returns the average time images with the given priority have been waiting in the queue before they started loading.
+     *
+     * @param priority
+     *         One of {@link #PRIORITY_VISIBLE}, {@link #PRIORITY_PREFETCH} or {@link #PRIORITY_OFFSCREEN}.
+     *
+     * @return The average wait time in milliseconds.
+     */
+    public long averageQueueWaitTime(int priority)
+    {
+        return mLoader.averageWaitTime(priority);
+    }
+
+
+    /**
+     * Returns the number of times an image failed to load.
+     *
+     * @return The number of failed loads.
+     */
+    public int failureCount()
+    {
+        synchronized (mFailures)
+        {
+            return mFailureCount;
+        }
+    }
+
+
+    /**
+     * Returns the number of requests that have not been passed to the loader because the image failed to load recently.
+     *
+     * @return The number of suppressed requests.
+     */
+    public int suppressedRequestCount()
+    {
+        synchronized (mFailures)
+        {
+            return mSuppressedRequestCount;
+        }
+    }
+
+
+    /**
+     * The failure state of an image that couldn't be loaded.
+     */
+    private final static class LoadFailure
+    {
+        /**
+         * The number of subsequent failures.
+         */
+        int count;
+
+        /**
+         * The {@link SystemClock#elapsedRealtime()} when the image may be requested again.
+         */
+        long retryTime;
+    }
+
+
+    /**
+     * A cache for the images.
+     */
+    class ImageCache extends LruCache<Long, Drawable>
+    {
+
+        /**
+         * Instantiate a new ImageCache with the given capacity.
+         *
+         * @param maxSize
+         *         The maximum number of bytes the cache should use.
+         */
+        public ImageCache(int maxSize)
+        {
+            super(maxSize);
+        }
+
+
+        @Override
+        protected int sizeOf(Long key, Drawable value)
+        {
+            if (value instanceof BitmapDrawable && ((BitmapDrawable) value).getBitmap() != null)
+            {
+                return BitmapCompat.getAllocationByteCount(((BitmapDrawable) value).getBitmap());
+            }
+            // assume all other images are 32 bit uncompressed - this is just a rough estimation
+            return Math.abs(value.getIntrinsicHeight()) * Math.abs(value.getIntrinsicWidth()) * 4;
+        }
+
+
+        @Override
+        protected void entryRemoved(boolean evicted, Long key, Drawable oldValue, Drawable newValue)
+        {
+            if (oldValue != newValue)
+            {
+                recycleImage(oldValue);
+            }
         }
     }
 }
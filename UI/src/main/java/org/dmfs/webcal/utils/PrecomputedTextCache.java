@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.TextView;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import androidx.collection.LruCache;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+
+/**
+ * A cache of texts that have been measured and laid out in the background for one kind of {@link TextView}, e.g. the titles of a list. Adapters request the
+ * texts of the rows that are about to be shown by {@link #precompute(String)} and apply them with {@link #apply(TextView, String)} when the row is bound, so
+ * the expensive text measurement doesn't happen on the main thread while scrolling.
+ * <p>
+ * The texts can only be measured once the text metrics are known, see {@link #setParams(PrecomputedTextCompat.Params)}. Until then, and for texts that are
+ * not ready yet, {@link #apply(TextView, String)} just sets the plain text.
+ * </p>
+ * <p>
+ * Texts can also be given as a range of a <code>char</code> array, e.g. a {@link android.database.CharArrayBuffer} a cursor has copied the text to. They are
+ * looked up without creating a {@link String}, so binding a row with texts that are cached doesn't allocate anything.
+ * </p>
+ * <p>
+ * This class must only be used on the main thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public final class PrecomputedTextCache
+{
+    /**
+     * The executor that measures the texts. It's shared by all caches, a single thread is enough to keep ahead of the list.
+     */
+    private final static ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            return new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "TextPrecomputer");
+        }
+    });
+
+    /**
+     * The precomputed texts. The keys are always {@link String}s, the {@link CharSequence} type only allows to look them up by {@link #mLookupKey}.
+     */
+    private final LruCache<CharSequence, PrecomputedTextCompat> mCache;
+    private final Set<CharSequence> mPending = new HashSet<CharSequence>(16);
+    private final CharsKey mLookupKey = new CharsKey();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private PrecomputedTextCompat.Params mParams;
+
+    private int mHitCount;
+    private int mMissCount;
+
+
+    /**
+     * Create a new {@link PrecomputedTextCache}.
+     *
+     * @param maxSize
+     *         The maximum number of texts to keep.
+     */
+    public PrecomputedTextCache(int maxSize)
+    {
+        mCache = new LruCache<CharSequence, PrecomputedTextCompat>(Math.max(1, maxSize));
+    }
+
+
+    /**
+     * Returns whether the text metrics are known.
+     *
+     * @return <code>true</code> if texts can be precomputed.
+     */
+    public boolean hasParams()
+    {
+        return mParams != null;
+    }
+
+
+    /**
+     * Set the text metrics of the {@link TextView}s the texts are shown in, e.g. by taking them from the first bound row with
+     * {@link TextViewCompat#getTextMetricsParams(TextView)}. If the metrics change, all cached texts are dropped.
+     *
+     * @param params
+     *         The {@link PrecomputedTextCompat.Params} of the {@link TextView}s.
+     */
+    public void setParams(PrecomputedTextCompat.Params params)
+    {
+        if (mParams == null || !mParams.equals(params))
+        {
+            mParams = params;
+            mCache.evictAll();
+            mPending.clear();
+        }
+    }
+
+
+    /**
+     * Measure the given text in the background, unless it's already cached or being measured.
+     *
+     * @param text
+     *         The text, exactly as it will be passed to {@link #apply(TextView, String)}.
+     */
+    public void precompute(final String text)
+    {
+        if (mParams == null || text == null || text.length() == 0 || mCache.get(text) != null || !mPending.add(text))
+        {
+            return;
+        }
+
+        final PrecomputedTextCompat.Params params = mParams;
+        EXECUTOR.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                final PrecomputedTextCompat result = PrecomputedTextCompat.create(text, params);
+                mHandler.post(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        // ignore the result if the metrics have changed in the meantime
+                        if (params == mParams && mPending.remove(text))
+                        {
+                            mCache.put(text, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+
+    /**
+     * Measure the given text in the background, unless it's already cached or being measured. A {@link String} is only created if the text needs to be
+     * measured.
+     *
+     * @param text
+     *         The array that contains the text.
+     * @param start
+     *         The position of the first character of the text.
+     * @param length
+     *         The length of the text.
+     */
+    public void precompute(char[] text, int start, int length)
+    {
+        if (mParams == null || length == 0)
+        {
+            return;
+        }
+
+        CharsKey key = mLookupKey.set(text, start, length);
+        if (mCache.get(key) == null && !mPending.contains(key))
+        {
+            precompute(key.toString());
+        }
+    }
+
+
+    /**
+     * Set the given text on the given {@link TextView}, using the precomputed layout if there is one.
+     *
+     * @param view
+     *         The {@link TextView}.
+     * @param text
+     *         The text to show.
+     */
+    public void apply(TextView view, String text)
+    {
+        PrecomputedTextCompat precomputedText = text == null ? null : mCache.get(text);
+        if (precomputedText != null)
+        {
+            try
+            {
+                TextViewCompat.setPrecomputedText(view, precomputedText);
+                ++mHitCount;
+                return;
+            }
+            catch (IllegalArgumentException e)
+            {
+                // the text metrics of the view don't match, fall through and set the plain text
+            }
+        }
+        ++mMissCount;
+        view.setText(text);
+    }
+
+
+    /**
+     * Set the given text on the given {@link TextView}, using the precomputed layout if there is one.
+     * <p>
+     * If there is no precomputed layout, the {@link TextView} shows the given array as is, so its content must not change until another text is set.
+     * </p>
+     *
+     * @param view
+     *         The {@link TextView}.
+     * @param text
+     *         The array that contains the text to show.
+     * @param start
+     *         The position of the first character of the text.
+     * @param length
+     *         The length of the text.
+     */
+    public void apply(TextView view, char[] text, int start, int length)
+    {
+        PrecomputedTextCompat precomputedText = length == 0 ? null : mCache.get(mLookupKey.set(text, start, length));
+        if (precomputedText != null)
+        {
+            try
+            {
+                TextViewCompat.setPrecomputedText(view, precomputedText);
+                ++mHitCount;
+                return;
+            }
+            catch (IllegalArgumentException e)
+            {
+                // the text metrics of the view don't match, fall through and set the plain text
+            }
+        }
+        ++mMissCount;
+        view.setText(text, start, length);
+    }
+
+
+    /**
+     * Remove all texts from the cache.
+     */
+    public void clear()
+    {
+        mCache.evictAll();
+        mPending.clear();
+    }
+
+
+    /**
+     * Returns the number of texts that have been applied with a precomputed layout.
+     *
+     * @return The number of cache hits.
+     */
+    public int hitCount()
+    {
+        return mHitCount;
+    }
+
+
+    /**
+     * Returns the number of texts that had to be laid out on the main thread.
+     *
+     * @return The number of cache misses.
+     */
+    public int missCount()
+    {
+        return mMissCount;
+    }
+
+
+    /**
+     * A key to look up {@link String}s by a range of a <code>char</code> array. It has the same hash code as a {@link String} with the same content and it
+     * equals any {@link CharSequence} with the same content. That's sufficient to look up {@link String} keys, because hash maps only ever compare the
+     * lookup key to their keys, not the other way round. It must never be stored in a map itself.
+     */
+    private final static class CharsKey implements CharSequence
+    {
+        private char[] mChars;
+        private int mStart;
+        private int mLength;
+
+
+        CharsKey set(char[] chars, int start, int length)
+        {
+            mChars = chars;
+            mStart = start;
+            mLength = length;
+            return this;
+        }
+
+
+        @Override
+        public int length()
+        {
+            return mLength;
+        }
+
+
+        @Override
+        public char charAt(int index)
+        {
+            return mChars[mStart + index];
+        }
+
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            return new String(mChars, mStart + start, end - start);
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return new String(mChars, mStart, mLength);
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            // same as String.hashCode()
+            int result = 0;
+            for (int i = mStart, end = mStart + mLength; i < end; ++i)
+            {
+                result = 31 * result + mChars[i];
+            }
+            return result;
+        }
+
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof CharSequence))
+            {
+                return false;
+            }
+            CharSequence other = (CharSequence) o;
+            if (other.length() != mLength)
+            {
+                return false;
+            }
+            for (int i = 0; i < mLength; ++i)
+            {
+                if (other.charAt(i) != mChars[mStart + i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListView;
+
+import org.dmfs.webcal.R;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import androidx.annotation.LayoutRes;
+
+
+/**
+ * A pool of inflated list rows that can be shared by multiple lists using the same row layouts, e.g. the pages of a ViewPager. When a list is destroyed,
+ * its rows are returned to the pool and the next list takes them instead of inflating new ones.
+ * <p>
+ * Rows are pooled by their layout resource. Only rows that have been inflated by {@link #inflate(LayoutInflater, int, ViewGroup)} can be recycled.
+ * </p>
+ * <p>
+ * The pool can also be filled in advance by {@link #preinflate(Context, int, int)}, which inflates rows on a background thread while the content of the list
+ * is still loading.
+ * </p>
+ * <p>
+ * This class must only be used on the main thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public final class RowViewPool
+{
+    /**
+     * The maximum number of rows to keep per layout.
+     */
+    private final static int MAX_ROWS_PER_LAYOUT = 24;
+
+    private final static String TAG = "RowViewPool";
+
+    /**
+     * The executor that inflates rows in advance. A single thread is enough, the rows are only needed once the list content has been loaded.
+     */
+    private final static ExecutorService PREINFLATION_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            return new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "RowPreinflater");
+        }
+    });
+
+    private final SparseArray<ArrayList<View>> mRows = new SparseArray<ArrayList<View>>(4);
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Incremented whenever the pool is cleared, so rows that are inflated in advance for an earlier generation are not added anymore.
+     */
+    private int mGeneration;
+
+    private int mInflationCount;
+    private int mReuseCount;
+    private int mPreinflationCount;
+
+
+    /**
+     * Returns a row with the given layout, either from the pool or freshly inflated.
+     *
+     * @param inflater
+     *         The {@link LayoutInflater} to inflate new rows.
+     * @param layout
+     *         The layout resource of the row.
+     * @param parent
+     *         The parent the row will be attached to.
+     *
+     * @return A row {@link View}.
+     */
+    public View inflate(LayoutInflater inflater, @LayoutRes int layout, ViewGroup parent)
+    {
+        ArrayList<View> rows = mRows.get(layout);
+        if (rows != null && !rows.isEmpty())
+        {
+            ++mReuseCount;
+            return rows.remove(rows.size() - 1);
+        }
+
+        ++mInflationCount;
+        View row = inflater.inflate(layout, parent, false);
+        row.setTag(R.id.row_view_pool_layout, layout);
+        return row;
+    }
+
+
+    /**
+     * Return the given rows to the pool. Rows that have not been inflated by this pool are ignored, as are rows that don't fit into the pool anymore.
+     *
+     * @param rows
+     *         The rows that are no longer attached to any list, e.g. the rows returned by {@link android.widget.AbsListView#reclaimViews(List)}.
+     */
+    public void recycle(List<View> rows)
+    {
+        for (View row : rows)
+        {
+            Object layout = row.getTag(R.id.row_view_pool_layout);
+            if (!(layout instanceof Integer) || row.getParent() != null)
+            {
+                continue;
+            }
+
+            add((Integer) layout, row);
+        }
+    }
+
+
+    /**
+     * Inflate the given number of rows with the given layout on a background thread and add them to the pool. Rows that are requested before they are ready
+     * are inflated on the main thread as usual.
+     * <p>
+     * The background inflation doesn't use the factory of the activity, see {@link BackgroundLayoutInflater}. If a row can't be inflated that way, the
+     * remaining rows are left to the main thread.
+     * </p>
+     *
+     * @param context
+     *         The (themed) {@link Context} of the list.
+     * @param layout
+     *         The layout resource of the rows.
+     * @param count
+     *         The number of rows to inflate, the pool won't take more than {@value #MAX_ROWS_PER_LAYOUT} rows per layout.
+     */
+    public void preinflate(Context context, @LayoutRes final int layout, int count)
+    {
+        final int rowCount = Math.min(MAX_ROWS_PER_LAYOUT, count);
+        if (rowCount <= 0)
+        {
+            return;
+        }
+
+        final int generation = mGeneration;
+        final LayoutInflater inflater = new BackgroundLayoutInflater(context);
+        // the rows need the AbsListView.LayoutParams of a list row, ListView casts them on older platforms, the parent must be created here
+        final ViewGroup parent = new ListView(context);
+
+        PREINFLATION_EXECUTOR.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < rowCount; ++i)
+                {
+                    final View row;
+                    try
+                    {
+                        row = inflater.inflate(layout, parent, false);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        // this includes InflateExceptions, e.g. if a view insists on being created on the main thread
+                        Log.w(TAG, "could not inflate row in the background", e);
+                        return;
+                    }
+
+                    mHandler.post(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            if (generation == mGeneration)
+                            {
+                                ++mPreinflationCount;
+                                row.setTag(R.id.row_view_pool_layout, layout);
+                                add(layout, row);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Remove all rows from the pool. Rows that are still being inflated in advance are dropped.
+     */
+    public void clear()
+    {
+        ++mGeneration;
+        mRows.clear();
+    }
+
+
+    /**
+     * Returns the number of rows that had to be inflated because the pool didn't contain a matching row.
+     *
+     * @return The number of inflated rows.
+     */
+    public int inflationCount()
+    {
+        return mInflationCount;
+    }
+
+
+    /**
+     * Returns the number of rows that have been taken from the pool instead of inflating them.
+     *
+     * @return The number of reused rows.
+     */
+    public int reuseCount()
+    {
+        return mReuseCount;
+    }
+
+
+    /**
+     * Returns the number of rows that have been inflated in advance on a background thread.
+     *
+     * @return The number of rows inflated in advance.
+     */
+    public int preinflationCount()
+    {
+        return mPreinflationCount;
+    }
+
+
+    private void add(int layout, View row)
+    {
+        ArrayList<View> pooledRows = mRows.get(layout);
+        if (pooledRows == null)
+        {
+            pooledRows = new ArrayList<View>(MAX_ROWS_PER_LAYOUT);
+            mRows.put(layout, pooledRows);
+        }
+        if (pooledRows.size() < MAX_ROWS_PER_LAYOUT)
+        {
+            pooledRows.add(row);
+        }
+    }
+}
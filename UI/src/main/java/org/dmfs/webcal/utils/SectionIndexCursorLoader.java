@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+
+import org.dmfs.webcal.adapters.SectionIndexCursor;
+import org.dmfs.webcal.adapters.SectionTitlesAdapter;
+import org.dmfs.webcal.adapters.SectionTitlesAdapter.SectionIndexer;
+
+import androidx.loader.content.CursorLoader;
+
+
+/**
+ * A {@link CursorLoader} that builds the section index for a {@link SectionTitlesAdapter} on the loader thread. The loaded cursor is delivered as a
+ * {@link SectionIndexCursor}, so swapping it into the adapter doesn't index the rows on the main thread.
+ *
+ * @author agent <agent@local>
+ */
+public final class SectionIndexCursorLoader extends CursorLoader
+{
+    private final SectionIndexer mIndexer;
+
+
+    /**
+     * Create a new {@link SectionIndexCursorLoader}.
+     *
+     * @param context
+     *         A {@link Context}.
+     * @param uri
+     *         The content URI to load.
+     * @param projection
+     *         The projection or <code>null</code> to load all columns.
+     * @param selection
+     *         The selection or <code>null</code>.
+     * @param selectionArgs
+     *         The selection arguments or <code>null</code>.
+     * @param sortOrder
+     *         The sort order or <code>null</code>.
+     * @param indexer
+     *         The {@link SectionIndexer} to index the rows with. It's called on the loader thread, so it must not share any state with the main thread.
+     */
+    public SectionIndexCursorLoader(Context context, Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder,
+                                    SectionIndexer indexer)
+    {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+        mIndexer = indexer;
+    }
+
+
+    @Override
+    public Cursor loadInBackground()
+    {
+        Cursor cursor = super.loadInBackground();
+        if (cursor == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return new SectionIndexCursor(cursor, mIndexer);
+        }
+        catch (RuntimeException e)
+        {
+            cursor.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+
+/**
+ * A process wide cache of {@link TimeZone}s by id. {@link TimeZone#getTimeZone(String)} returns a new instance on every call, which adds up when it's called
+ * for every event of a feed, although most feeds use just one or two time zones.
+ * <p>
+ * Note that the returned instances are shared, they must not be modified.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public enum TimeZoneCache
+{
+    INSTANCE;
+
+    private final Map<String, TimeZone> mTimeZones = new HashMap<String, TimeZone>(16);
+
+    private int mLookupCount;
+
+
+    /**
+     * Returns the {@link TimeZone} with the given id.
+     *
+     * @param id
+     *         The time zone id, may be <code>null</code>.
+     *
+     * @return The {@link TimeZone} or <code>null</code> if the id was <code>null</code>. Like {@link TimeZone#getTimeZone(String)}, this returns UTC for
+     * unknown ids.
+     */
+    public synchronized TimeZone timeZone(String id)
+    {
+        if (id == null)
+        {
+            return null;
+        }
+
+        TimeZone timeZone = mTimeZones.get(id);
+        if (timeZone == null)
+        {
+            ++mLookupCount;
+            timeZone = TimeZone.getTimeZone(id);
+            mTimeZones.put(id, timeZone);
+        }
+        return timeZone;
+    }
+
+
+    /**
+     * Returns the number of time zones that had to be looked up because they were not in the cache.
+     *
+     * @return The number of time zone lookups.
+     */
+    public synchronized int lookupCount()
+    {
+        return mLookupCount;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.drawable.Drawable;
+
+import org.dmfs.webcal.utils.color.ValueColor;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.DrawableRes;
+import androidx.collection.LongSparseArray;
+import androidx.collection.SparseArrayCompat;
+
+
+/**
+ * A process wide cache of tinted {@link Drawable}s. Each combination of drawable and color is tinted only once, subsequent requests return a new
+ * {@link Drawable} instance created from the {@link Drawable.ConstantState} of the cached one, so the returned drawables can be used independently but
+ * share their (immutable) state.
+ * <p>
+ * Note that colors have to be resolved by the caller, the cache doesn't know anything about themes.
+ * </p>
+ * <p>
+ * The cached states depend on the resource configuration (density, night mode, etc.), so the cache is cleared whenever it's used with a different
+ * configuration.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+public enum TintedDrawableCache
+{
+    INSTANCE;
+
+    /**
+     * The states of tinted drawable resources, mapped by the resource id in the upper 32 bits and the color in the lower 32 bits.
+     */
+    private final LongSparseArray<Drawable.ConstantState> mResourceStates = new LongSparseArray<Drawable.ConstantState>(16);
+
+    /**
+     * The states of tinted drawables, mapped by the state of the original drawable and the color. The original states are weak keys, so they don't outlive the
+     * {@link android.content.res.Resources} they have been loaded from.
+     */
+    private final Map<Drawable.ConstantState, SparseArrayCompat<Drawable.ConstantState>> mDrawableStates = new WeakHashMap<Drawable.ConstantState, SparseArrayCompat<Drawable.ConstantState>>(
+            16);
+
+    /**
+     * The configuration of the cached states.
+     */
+    private Configuration mConfiguration;
+
+    private int mHitCount;
+    private int mMissCount;
+
+
+    /**
+     * Returns the given drawable resource tinted with the given color.
+     *
+     * @param context
+     *         A {@link Context}.
+     * @param drawableResId
+     *         The id of the drawable resource.
+     * @param color
+     *         The resolved color to tint the drawable with.
+     *
+     * @return A new tinted {@link Drawable} instance.
+     */
+    public Drawable drawable(Context context, @DrawableRes int drawableResId, @ColorInt int color)
+    {
+        long key = ((long) drawableResId << 32) | (color & 0xffffffffL);
+        Drawable.ConstantState state;
+        synchronized (this)
+        {
+            checkConfiguration(context);
+            state = mResourceStates.get(key);
+        }
+
+        if (state != null)
+        {
+            hit();
+            return state.newDrawable(context.getResources());
+        }
+
+        miss();
+        Drawable result = new TintedDrawable(context, drawableResId, new ValueColor(color)).value();
+        state = result.getConstantState();
+        if (state != null)
+        {
+            synchronized (this)
+            {
+                // the configuration may have changed while we were tinting
+                checkConfiguration(context);
+                mResourceStates.put(key, state);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the given drawable tinted with the given color. Drawables without a {@link Drawable.ConstantState} can't be cached, they are tinted on every
+     * call.
+     *
+     * @param context
+     *         A {@link Context}.
+     * @param drawable
+     *         The original {@link Drawable}, this instance is not modified.
+     * @param color
+     *         The resolved color to tint the drawable with.
+     *
+     * @return A new tinted {@link Drawable} instance.
+     */
+    public Drawable drawable(Context context, Drawable drawable, @ColorInt int color)
+    {
+        Drawable.ConstantState originalState = drawable.getConstantState();
+        if (originalState == null)
+        {
+            miss();
+            return new TintedDrawable(drawable, new ValueColor(color)).value();
+        }
+
+        Drawable.ConstantState state = null;
+        synchronized (this)
+        {
+            checkConfiguration(context);
+            SparseArrayCompat<Drawable.ConstantState> states = mDrawableStates.get(originalState);
+            if (states != null)
+            {
+                state = states.get(color);
+            }
+        }
+
+        if (state != null)
+        {
+            hit();
+            return state.newDrawable(context.getResources());
+        }
+
+        miss();
+        // tint a copy, so the original drawable stays untouched
+        Drawable result = new TintedDrawable(originalState.newDrawable(context.getResources()), new ValueColor(color)).value();
+        state = result.getConstantState();
+        if (state != null)
+        {
+            synchronized (this)
+            {
+                checkConfiguration(context);
+                SparseArrayCompat<Drawable.ConstantState> states = mDrawableStates.get(originalState);
+                if (states == null)
+                {
+                    states = new SparseArrayCompat<Drawable.ConstantState>(2);
+                    mDrawableStates.put(originalState, states);
+                }
+                states.put(color, state);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the number of drawables that have been created from a cached state.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized int hitCount()
+    {
+        return mHitCount;
+    }
+
+
+    /**
+     * Returns the number of drawables that had to be tinted because they were not in the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized int missCount()
+    {
+        return mMissCount;
+    }
+
+
+    /**
+     * Clear the cache if the configuration of the given {@link Context} differs from the one of the cached states. Must be called while holding the lock.
+     */
+    private void checkConfiguration(Context context)
+    {
+        Configuration configuration = context.getResources().getConfiguration();
+        if (mConfiguration == null || !mConfiguration.equals(configuration))
+        {
+            mResourceStates.clear();
+            mDrawableStates.clear();
+            mConfiguration = new Configuration(configuration);
+        }
+    }
+
+
+    private synchronized void hit()
+    {
+        ++mHitCount;
+    }
+
+
+    private synchronized void miss()
+    {
+        ++mMissCount;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 SchedJoules
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dmfs.webcal.utils.color;
+
+import androidx.annotation.ColorInt;
+
+
+/**
+ * A {@link Color} with a fixed value, e.g. a color that has been resolved before.
+ *
+ * @author agent <agent@local>
+ */
+// TODO Remove when available from dmfs android tools library
+public final class ValueColor implements Color
+{
+    @ColorInt
+    private final int mArgb;
+
+
+    public ValueColor(@ColorInt int argb)
+    {
+        mArgb = argb;
+    }
+
+
+    @ColorInt
+    @Override
+    public int argb()
+    {
+        return mArgb;
+    }
+}
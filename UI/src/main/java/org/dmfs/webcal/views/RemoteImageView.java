@@ -42,7 +42,13 @@ public class RemoteImageView extends AppCompatImageView implements ImageAvailabl
     private final static int ANIMATION_DURATION = 250; // ms
 
     private ImageProxy mImageProxy;
-    private long mSource;
+    private long mSource = -1;
+    private int mPriority = ImageProxy.PRIORITY_VISIBLE;
+    /**
+     * Whether the image has been dropped (or its pending request cancelled) when this view was detached, in which case it's requested again when the view is
+     * attached.
+     */
+    private boolean mRequestCancelled;
 
 
     public RemoteImageView(Context context)
@@ -88,15 +94,23 @@ public class RemoteImageView extends AppCompatImageView implements ImageAvailabl
      */
     public void setRemoteSource(long iconId, boolean useSpaceIfNoImage)
     {
+        if (iconId != mSource)
+        {
+            // this view has been recycled, we're no longer interested in the previous image
+            mImageProxy.cancelImageRequest(mSource, this);
+        }
+        mRequestCancelled = false;
+
         if (iconId == -1 && !useSpaceIfNoImage)
         {
             // no icon
+            mSource = -1;
             setVisibility(GONE);
             return;
         }
         setVisibility(VISIBLE);
 
-        Drawable image = mImageProxy.getImage(iconId, this);
+        Drawable image = mImageProxy.getImage(iconId, this, mPriority);
 
         if (image != null)
         {
@@ -112,6 +126,70 @@ public class RemoteImageView extends AppCompatImageView implements ImageAvailabl
     }
 
 
+    /**
+     * Set the priority to load the image with. If the image is still loading, its request is updated accordingly.
+     *
+     * @param priority
+     *         One of {@link ImageProxy#PRIORITY_VISIBLE}, {@link ImageProxy#PRIORITY_PREFETCH} or {@link ImageProxy#PRIORITY_OFFSCREEN}.
+     */
+    public void setImagePriority(int priority)
+    {
+        if (priority != mPriority)
+        {
+            mPriority = priority;
+            if (mSource != -1 && getDrawable() == null)
+            {
+                mImageProxy.setImagePriority(mSource, this, priority);
+            }
+        }
+    }
+
+
+    @Override
+    public void setImageDrawable(Drawable drawable)
+    {
+        Drawable oldDrawable = getDrawable();
+        super.setImageDrawable(drawable);
+        if (mImageProxy != null && oldDrawable != drawable)
+        {
+            // let the ImageProxy know which images are on screen, so it doesn't reuse their bitmaps
+            mImageProxy.acquireImage(drawable);
+            mImageProxy.releaseImage(oldDrawable);
+        }
+    }
+
+
+    @Override
+    protected void onAttachedToWindow()
+    {
+        super.onAttachedToWindow();
+        if (mRequestCancelled)
+        {
+            // the request has been cancelled when we were detached, try again
+            mRequestCancelled = false;
+            Drawable image = mImageProxy.getImage(mSource, this, mPriority);
+            if (image != null)
+            {
+                setImageDrawable(image);
+            }
+        }
+    }
+
+
+    @Override
+    protected void onDetachedFromWindow()
+    {
+        // nobody will see the image, so don't wait for it and release the current one, it's loaded again when we're attached
+        if (mSource != -1)
+        {
+            mImageProxy.cancelImageRequest(mSource, this);
+            mRequestCancelled = true;
+        }
+        setImageDrawable(null);
+        super.onDetachedFromWindow();
+    }
+
+
     @Override
     public void imageAvailable(long iconId, Drawable drawable)
     {
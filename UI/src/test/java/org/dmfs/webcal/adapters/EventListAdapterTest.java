@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.adapters;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+import android.provider.Settings;
+import android.text.format.DateUtils;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import org.dmfs.android.webcalreader.provider.WebCalReaderContract;
+import org.dmfs.webcal.R;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.lang.management.ManagementFactory;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+
+/**
+ * Test {@link EventListAdapter}.
+ * <p>
+ * The main looper is paused, so the texts measured in the background are never delivered and all texts are set as plain text. That keeps the allocation
+ * test independent of the timing of the background thread.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class EventListAdapterTest
+{
+    private final static String[] COLUMNS = new String[] {
+            "_id", WebCalReaderContract.Events.TITLE, WebCalReaderContract.Events.IS_ALLDAY, WebCalReaderContract.Events.DTSTART,
+            WebCalReaderContract.Events.DTEND, WebCalReaderContract.Events.TIMZONE, WebCalReaderContract.Events.LOCATION,
+            WebCalReaderContract.Events.DESCRIPTION };
+
+    private final static long HOUR = 3600 * 1000L;
+    private final static long DAY = 24 * HOUR;
+
+    /**
+     * 2020-03-01 00:00:00 UTC.
+     */
+    private final static long MARCH_1ST = 1583020800000L;
+
+    private final static int END_DATE_FLAGS = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_NO_YEAR | DateUtils.FORMAT_ABBREV_MONTH;
+
+    private Context mContext;
+    private TimeZone mDefaultTimeZone;
+
+
+    @Before
+    public void setUp()
+    {
+        mDefaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        mContext = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.SchedJoules_Theme_Default);
+        Settings.System.putString(mContext.getContentResolver(), Settings.System.TIME_12_24, "24");
+    }
+
+
+    @After
+    public void tearDown()
+    {
+        TimeZone.setDefault(mDefaultTimeZone);
+    }
+
+
+    @Test
+    public void testTimedEvents()
+    {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        long start = MARCH_1ST + 9 * HOUR;
+        // no end
+        cursor.addRow(new Object[] { 1, "meeting", 0, start, start, "Europe/Berlin", null, null });
+        // ends the same day
+        cursor.addRow(new Object[] { 2, "meeting", 0, start, start + 2 * HOUR, "Europe/Berlin", "  room 1 ", "agenda" });
+        // ends more than 12 hours later, no time zone
+        cursor.addRow(new Object[] { 3, "conference", 0, start, start + 2 * DAY + HOUR, null, "\t", "line 1\nline 2\nline 3\nline 4\nline 5" });
+
+        EventListAdapter adapter = new EventListAdapter(mContext, cursor);
+        ViewGroup parent = new ListView(mContext);
+
+        View row = adapter.getView(0, null, parent);
+        assertText(time(start), row, android.R.id.text1);
+        assertGone(row, R.id.endtime);
+        assertGone(row, R.id.ellipsis);
+        assertGone(row, android.R.id.text2);
+        assertGone(row, R.id.description);
+
+        row = adapter.getView(1, row, parent);
+        assertText("meeting", row, android.R.id.title);
+        assertText(time(start), row, android.R.id.text1);
+        assertText(time(start + 2 * HOUR), row, R.id.endtime);
+        assertText("room 1", row, android.R.id.text2);
+        assertText("agenda", row, R.id.description);
+
+        row = adapter.getView(2, row, parent);
+        assertText("conference", row, android.R.id.title);
+        assertText(format(start + 2 * DAY + HOUR, END_DATE_FLAGS, "Europe/Berlin") + "\n" + time(start + 2 * DAY + HOUR), row, R.id.endtime);
+        assertGone(row, android.R.id.text2);
+        // cut off after the third line
+        assertText("line 1\nline 2\nline 3\n", row, R.id.description);
+    }
+
+
+    @Test
+    public void testAllDayEvents()
+    {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        // a single day
+        cursor.addRow(new Object[] { 1, "holiday", 1, MARCH_1ST, MARCH_1ST + DAY, null, null, null });
+        // three days, the end is exclusive
+        cursor.addRow(new Object[] { 2, "vacation", 1, MARCH_1ST, MARCH_1ST + 3 * DAY, null, null, null });
+        // two days in a time zone far from UTC
+        cursor.addRow(new Object[] { 3, "trip", 1, MARCH_1ST + 10 * HOUR, MARCH_1ST + 2 * DAY + 10 * HOUR, "Pacific/Honolulu", null, null });
+
+        EventListAdapter adapter = new EventListAdapter(mContext, cursor);
+        ViewGroup parent = new ListView(mContext);
+        String allDay = mContext.getString(R.string.all_day);
+
+        View row = adapter.getView(0, null, parent);
+        assertText(allDay, row, android.R.id.text1);
+        assertGone(row, R.id.endtime);
+
+        row = adapter.getView(1, row, parent);
+        assertText(allDay, row, android.R.id.text1);
+        assertText(format(MARCH_1ST + 2 * DAY, END_DATE_FLAGS, "UTC"), row, R.id.endtime);
+
+        // 2020-03-03 00:00 in Honolulu, so the last day is March 2nd
+        row = adapter.getView(2, row, parent);
+        assertText(format(MARCH_1ST + DAY, END_DATE_FLAGS, "UTC"), row, R.id.endtime);
+    }
+
+
+    @Test
+    public void testBindViewDoesNotAllocate()
+    {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        int rows = 20;
+        for (int i = 0; i < rows; ++i)
+        {
+            long start = MARCH_1ST + i * DAY + (i % 5) * HOUR;
+            switch (i % 4)
+            {
+                case 0:
+                    cursor.addRow(new Object[] { i, "event " + i, 0, start, start + HOUR, "Europe/Berlin", " location " + i + " ", "description" });
+                    break;
+                case 1:
+                    cursor.addRow(new Object[] { i, "event " + i, 0, start, start + 2 * DAY, "America/New_York", null, "1\n2\n3\n4" });
+                    break;
+                case 2:
+                    cursor.addRow(new Object[] { i, "event " + i, 1, MARCH_1ST + i * DAY, MARCH_1ST + (i + 3) * DAY, null, "location", null });
+                    break;
+                default:
+                    cursor.addRow(new Object[] { i, "event " + i, 0, start, start, null, null, "  description  " });
+            }
+        }
+
+        EventListAdapter adapter = new EventListAdapter(mContext, cursor);
+        ViewGroup parent = new ListView(mContext);
+        View[] views = new View[rows];
+        for (int i = 0; i < rows; ++i)
+        {
+            views[i] = adapter.getView(i, null, parent);
+        }
+
+        // warm up the caches, buffers and the JIT
+        for (int i = 0; i < 50; ++i)
+        {
+            bindAll(adapter, cursor, views);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        // the allocations of the measurement itself
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        long overhead = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        int iterations = 100;
+        before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; ++i)
+        {
+            bindAll(adapter, cursor, views);
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        // binding a row used to allocate several hundred bytes, allow for a little noise of the test environment
+        long perRow = allocated / (iterations * rows);
+        assertTrue("bindView allocated " + perRow + " bytes per row", perRow < 16);
+    }
+
+
+    private void bindAll(EventListAdapter adapter, MatrixCursor cursor, View[] views)
+    {
+        for (int i = 0; i < views.length; ++i)
+        {
+            cursor.moveToPosition(i);
+            adapter.bindView(views[i], mContext, cursor);
+        }
+    }
+
+
+    private String time(long timestamp)
+    {
+        return format(timestamp, DateUtils.FORMAT_SHOW_TIME, TimeZone.getDefault().getID());
+    }
+
+
+    private String format(long timestamp, int flags, String timeZoneId)
+    {
+        return DateUtils.formatDateRange(mContext, new Formatter(new StringBuilder(), Locale.getDefault()), timestamp, timestamp, flags, timeZoneId)
+                .toString();
+    }
+
+
+    private static void assertText(String expected, View row, int id)
+    {
+        TextView view = (TextView) row.findViewById(id);
+        assertEquals(View.VISIBLE, view.getVisibility());
+        assertEquals(expected, view.getText().toString());
+    }
+
+
+    private static void assertGone(View row, int id)
+    {
+        assertEquals(View.GONE, row.findViewById(id).getVisibility());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.adapters;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import androidx.cursoradapter.widget.CursorAdapter;
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+
+
+/**
+ * Test that the index of a {@link SectionIndexCursor} matches the index {@link SectionTitlesAdapter} builds from the same cursor.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SectionIndexCursorTest
+{
+    private final static String[] COLUMNS = new String[] { "_id", "section" };
+
+
+    @Test
+    public void testSameIndex()
+    {
+        assertSameIndex(cursor());
+        assertSameIndex(cursor(5));
+        assertSameIndex(cursor(1, 1, 1, 2, 2, 3, 1, 1, 7, 7, 7, 7, 8));
+        assertSameIndex(cursor(4, 3, 2, 1, 0, -1));
+        // more rows than the initial capacity of the adapter index
+        int[] sections = new int[100];
+        for (int i = 0; i < sections.length; ++i)
+        {
+            sections[i] = i / 3;
+        }
+        assertSameIndex(cursor(sections));
+    }
+
+
+    @Test
+    public void testIndexAdopted()
+    {
+        Context context = ApplicationProvider.getApplicationContext();
+        CountingIndexer indexer = new CountingIndexer();
+        SectionIndexCursor cursor = new SectionIndexCursor(cursor(1, 1, 2, 3, 3, 3), indexer);
+        assertEquals(6, indexer.calls);
+
+        SectionTitlesAdapter adapter = new SectionTitlesAdapter(context, new TestCursorAdapter(context, cursor), indexer, 0);
+        // the adapter takes the index from the cursor instead of indexing the rows again
+        assertEquals(6, indexer.calls);
+        assertEquals(9, adapter.getCount());
+    }
+
+
+    @Test
+    public void testSwapCursor()
+    {
+        Context context = ApplicationProvider.getApplicationContext();
+        CountingIndexer indexer = new CountingIndexer();
+        SectionTitlesAdapter adapter = new SectionTitlesAdapter(context, new TestCursorAdapter(context, cursor(1, 2, 3, 4, 5, 6, 7, 8, 9)), indexer, 0);
+        assertEquals(18, adapter.getCount());
+
+        Cursor plain = cursor(1, 1, 2, 2, 2, 5);
+        SectionIndexCursor indexed = new SectionIndexCursor(cursor(1, 1, 2, 2, 2, 5), indexer);
+
+        long[] expected = itemIds(new SectionTitlesAdapter(context, new TestCursorAdapter(context, plain), indexer, 0));
+        adapter.swapCursor(indexed);
+        assertIds(expected, itemIds(adapter));
+
+        // the adapter must not write into the index it has taken from the cursor
+        adapter.swapCursor(cursor(9, 9, 9, 9, 9, 9, 9, 9, 9));
+        assertIds(expected, itemIds(new SectionTitlesAdapter(context, new TestCursorAdapter(context, indexed), indexer, 0)));
+    }
+
+
+    private static void assertSameIndex(MatrixCursor cursor)
+    {
+        Context context = ApplicationProvider.getApplicationContext();
+        SectionTitlesAdapter.SectionIndexer indexer = new CountingIndexer();
+
+        long[] expected = itemIds(new SectionTitlesAdapter(context, new TestCursorAdapter(context, cursor), indexer, 0));
+        long[] actual = itemIds(new SectionTitlesAdapter(context, new TestCursorAdapter(context, new SectionIndexCursor(cursor, indexer)), indexer, 0));
+        assertIds(expected, actual);
+    }
+
+
+    private static void assertIds(long[] expected, long[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; ++i)
+        {
+            assertEquals("position " + i, expected[i], actual[i]);
+        }
+    }
+
+
+    private static long[] itemIds(SectionTitlesAdapter adapter)
+    {
+        long[] result = new long[adapter.getCount()];
+        for (int i = 0; i < result.length; ++i)
+        {
+            result[i] = adapter.getItemId(i);
+        }
+        return result;
+    }
+
+
+    private static MatrixCursor cursor(int... sections)
+    {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        for (int i = 0; i < sections.length; ++i)
+        {
+            cursor.addRow(new Object[] { i, sections[i] });
+        }
+        return cursor;
+    }
+
+
+    /**
+     * A {@link SectionTitlesAdapter.SectionIndexer} that takes the section from the cursor and counts its calls.
+     */
+    private final static class CountingIndexer implements SectionTitlesAdapter.SectionIndexer
+    {
+        int calls;
+
+
+        @Override
+        public int getSectionIndex(Object object)
+        {
+            ++calls;
+            return ((Cursor) object).getInt(1);
+        }
+
+
+        @Override
+        public String getSectionTitle(int index)
+        {
+            return String.valueOf(index);
+        }
+    }
+
+
+    /**
+     * A {@link CursorAdapter} that never creates any views.
+     */
+    private final static class TestCursorAdapter extends CursorAdapter
+    {
+        TestCursorAdapter(Context context, Cursor cursor)
+        {
+            super(context, cursor, 0);
+        }
+
+
+        @Override
+        public View newView(Context context, Cursor cursor, ViewGroup parent)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public void bindView(View view, Context context, Cursor cursor)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.fragments;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+import android.text.format.DateUtils;
+
+import org.dmfs.android.webcalreader.provider.WebCalReaderContract;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Calendar;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Test {@link CalendarItemFragment.EventDayIndexer}, in particular that it finds its columns in any projection.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class EventDayIndexerTest
+{
+    /**
+     * 2020-03-01 23:30:00 UTC, that's March 1st in New York, but March 2nd in Berlin.
+     */
+    private final static long TIMESTAMP = 1583105400000L;
+
+    private final static String[] ZONES = new String[] { "UTC", "Europe/Berlin", "America/New_York", "Asia/Tokyo", "Pacific/Honolulu" };
+
+    private Context mContext;
+    private TimeZone mDefaultTimeZone;
+
+
+    @Before
+    public void setUp()
+    {
+        mContext = ApplicationProvider.getApplicationContext();
+        mDefaultTimeZone = TimeZone.getDefault();
+    }
+
+
+    @After
+    public void tearDown()
+    {
+        TimeZone.setDefault(mDefaultTimeZone);
+    }
+
+
+    @Test
+    public void testSectionIndex()
+    {
+        // the columns in a different order than the indexer declares them, with other columns in between
+        MatrixCursor cursor = new MatrixCursor(
+                new String[] { "_id", WebCalReaderContract.Events.DTSTART, "title", WebCalReaderContract.Events.TIMZONE });
+        for (int i = 0; i < ZONES.length; ++i)
+        {
+            cursor.addRow(new Object[] { i, TIMESTAMP, "event " + i, ZONES[i] });
+        }
+
+        CalendarItemFragment.EventDayIndexer indexer = new CalendarItemFragment.EventDayIndexer(mContext);
+        for (String zone : ZONES)
+        {
+            assertTrue(cursor.moveToNext());
+            assertEquals(zone, expectedIndex(TIMESTAMP, zone), indexer.getSectionIndex(cursor));
+        }
+    }
+
+
+    @Test
+    public void testColumnOrder()
+    {
+        MatrixCursor cursor1 = new MatrixCursor(new String[] { WebCalReaderContract.Events.TIMZONE, WebCalReaderContract.Events.DTSTART });
+        cursor1.addRow(new Object[] { "Europe/Berlin", TIMESTAMP });
+        MatrixCursor cursor2 = new MatrixCursor(new String[] { WebCalReaderContract.Events.DTSTART, "_id", WebCalReaderContract.Events.TIMZONE });
+        cursor2.addRow(new Object[] { TIMESTAMP, 1, "America/New_York" });
+        assertTrue(cursor1.moveToFirst());
+        assertTrue(cursor2.moveToFirst());
+
+        // the same indexer must pick up the columns of each cursor it's given
+        CalendarItemFragment.EventDayIndexer indexer = new CalendarItemFragment.EventDayIndexer(mContext);
+        for (int i = 0; i < 2; ++i)
+        {
+            assertEquals(expectedIndex(TIMESTAMP, "Europe/Berlin"), indexer.getSectionIndex(cursor1));
+            assertEquals(expectedIndex(TIMESTAMP, "America/New_York"), indexer.getSectionIndex(cursor2));
+        }
+        assertTrue(expectedIndex(TIMESTAMP, "Europe/Berlin") != expectedIndex(TIMESTAMP, "America/New_York"));
+    }
+
+
+    @Test
+    public void testSectionTitle()
+    {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        MatrixCursor cursor = new MatrixCursor(new String[] { WebCalReaderContract.Events.TIMZONE, WebCalReaderContract.Events.DTSTART });
+        cursor.addRow(new Object[] { "Europe/Berlin", TIMESTAMP });
+        assertTrue(cursor.moveToFirst());
+
+        CalendarItemFragment.EventDayIndexer indexer = new CalendarItemFragment.EventDayIndexer(mContext);
+
+        Calendar midnight = Calendar.getInstance(TimeZone.getTimeZone("Europe/Berlin"));
+        midnight.clear();
+        midnight.set(2020, Calendar.MARCH, 2);
+        int flags = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_SHOW_WEEKDAY | DateUtils.FORMAT_ABBREV_WEEKDAY;
+        assertEquals(DateUtils.formatDateRange(mContext, new Formatter(new StringBuilder(), Locale.getDefault()), midnight.getTimeInMillis(),
+                midnight.getTimeInMillis(), flags, "Europe/Berlin").toString(), indexer.getSectionTitle(indexer.getSectionIndex(cursor)));
+    }
+
+
+    private static int expectedIndex(long timestamp, String zone)
+    {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(zone));
+        calendar.setTimeInMillis(timestamp);
+        return (calendar.get(Calendar.YEAR) << 16) + (calendar.get(Calendar.MONTH) << 8) + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+
+/**
+ * Test {@link BitmapPool}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BitmapPoolTest
+{
+    private final static int SIZE = 48;
+
+    /**
+     * The number of bytes of a bitmap of {@link #SIZE} x {@link #SIZE} pixels.
+     */
+    private final static int BYTES = SIZE * SIZE * 4;
+
+
+    @Test
+    public void testReuse()
+    {
+        BitmapPool pool = new BitmapPool(10 * BYTES);
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        assertEquals(0, pool.hitCount());
+        assertEquals(1, pool.missCount());
+
+        Bitmap bitmap = bitmap(SIZE, SIZE);
+        pool.put(bitmap);
+        // other sizes and configs don't match
+        assertNull(pool.get(SIZE, SIZE + 1, Bitmap.Config.ARGB_8888));
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.RGB_565));
+        assertSame(bitmap, pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        // the bitmap has been taken from the pool
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+
+        assertEquals(1, pool.hitCount());
+        assertEquals(4, pool.missCount());
+    }
+
+
+    @Test
+    public void testRejected()
+    {
+        BitmapPool pool = new BitmapPool(10 * BYTES);
+        pool.put(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888).copy(Bitmap.Config.ARGB_8888, false));
+        pool.put(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.RGB_565));
+        Bitmap recycled = bitmap(SIZE, SIZE);
+        recycled.recycle();
+        pool.put(recycled);
+
+        // immutable, other configs and recycled bitmaps can't be reused
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.RGB_565));
+    }
+
+
+    @Test
+    public void testCapacity()
+    {
+        BitmapPool pool = new BitmapPool(2 * BYTES);
+        Bitmap first = bitmap(SIZE, SIZE);
+        Bitmap second = bitmap(SIZE, SIZE);
+        pool.put(first);
+        // the same bitmap is only pooled once
+        pool.put(first);
+        pool.put(second);
+        // doesn't fit anymore
+        pool.put(bitmap(SIZE, SIZE));
+
+        assertSame(second, pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        assertSame(first, pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+
+        // taking bitmaps from the pool frees the space
+        Bitmap third = bitmap(SIZE, SIZE);
+        pool.put(third);
+        assertSame(third, pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+    }
+
+
+    @Test
+    public void testClear()
+    {
+        BitmapPool pool = new BitmapPool(BYTES);
+        pool.put(bitmap(SIZE, SIZE));
+        pool.clear();
+        assertNull(pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+
+        // the space is available again
+        Bitmap bitmap = bitmap(SIZE, SIZE);
+        pool.put(bitmap);
+        assertSame(bitmap, pool.get(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+    }
+
+
+    private static Bitmap bitmap(int width, int height)
+    {
+        // bitmaps created this way are mutable
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+}
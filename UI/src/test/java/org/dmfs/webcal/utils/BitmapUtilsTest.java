@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.res.AssetFileDescriptor;
+import android.os.ParcelFileDescriptor;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+
+/**
+ * Test {@link BitmapUtils#readFully(AssetFileDescriptor)}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BitmapUtilsTest
+{
+    /**
+     * The size of the test file, larger than the buffer of the stream path.
+     */
+    private final static int FILE_SIZE = 100 * 1024;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private byte[] mContent;
+    private File mFile;
+
+
+    @Before
+    public void setUp() throws IOException
+    {
+        mContent = new byte[FILE_SIZE];
+        new Random(42).nextBytes(mContent);
+        mFile = mFolder.newFile();
+        FileOutputStream out = new FileOutputStream(mFile);
+        try
+        {
+            out.write(mContent);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+
+    @Test
+    public void testWholeFile() throws IOException
+    {
+        byte[] result = BitmapUtils.readFully(descriptor(0, FILE_SIZE));
+        assertArrayEquals(mContent, result);
+        assertArrayEquals(BitmapUtils.readFully(new ByteArrayInputStream(mContent), FILE_SIZE), result);
+    }
+
+
+    @Test
+    public void testRegion() throws IOException
+    {
+        // a region of a larger file, like an uncompressed asset in an APK
+        assertArrayEquals(Arrays.copyOfRange(mContent, 1000, 21000), BitmapUtils.readFully(descriptor(1000, 20000)));
+        assertArrayEquals(Arrays.copyOfRange(mContent, FILE_SIZE - 10, FILE_SIZE), BitmapUtils.readFully(descriptor(FILE_SIZE - 10, 10)));
+        assertArrayEquals(new byte[0], BitmapUtils.readFully(descriptor(0, 0)));
+    }
+
+
+    @Test
+    public void testUnknownLength() throws IOException
+    {
+        // the content is read as a stream
+        assertArrayEquals(mContent, BitmapUtils.readFully(descriptor(0, AssetFileDescriptor.UNKNOWN_LENGTH)));
+    }
+
+
+    @Test
+    public void testTruncatedFile() throws IOException
+    {
+        try
+        {
+            BitmapUtils.readFully(descriptor(FILE_SIZE - 10, 20));
+            fail("the file is shorter than the declared length");
+        }
+        catch (EOFException e)
+        {
+            // pass
+        }
+    }
+
+
+    private AssetFileDescriptor descriptor(long startOffset, long length) throws IOException
+    {
+        return new AssetFileDescriptor(ParcelFileDescriptor.open(mFile, ParcelFileDescriptor.MODE_READ_ONLY), startOffset, length);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Test {@link CursorRow}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CursorRowTest
+{
+    private final static int COLUMN_TITLE = 0;
+    private final static int COLUMN_START = 1;
+    private final static int COLUMN_COUNT = 2;
+    private final static int COLUMN_MISSING = 3;
+
+
+    @Test
+    public void testValues()
+    {
+        MatrixCursor cursor = new MatrixCursor(new String[] { "_id", "title", "start", "count" });
+        cursor.addRow(new Object[] { 1, "first", 1400000000000L, 3 });
+        cursor.addRow(new Object[] { 2, null, 1500000000000L, 4 });
+
+        CursorRow row = new CursorRow("title", "start", "count", "missing");
+        assertTrue(cursor.moveToFirst());
+        assertSame(row, row.of(cursor));
+        assertTrue(row.has(COLUMN_TITLE));
+        assertTrue(row.has(COLUMN_START));
+        assertTrue(row.has(COLUMN_COUNT));
+        assertFalse(row.has(COLUMN_MISSING));
+        assertFalse(row.isNull(COLUMN_TITLE));
+        assertEquals("first", row.getString(COLUMN_TITLE));
+        assertEquals(1400000000000L, row.getLong(COLUMN_START));
+        assertEquals(3, row.getInt(COLUMN_COUNT));
+
+        // the row follows the position of the cursor
+        assertTrue(cursor.moveToNext());
+        assertTrue(row.of(cursor).isNull(COLUMN_TITLE));
+        assertNull(row.getString(COLUMN_TITLE));
+        assertEquals(1500000000000L, row.getLong(COLUMN_START));
+        assertEquals(4, row.getInt(COLUMN_COUNT));
+    }
+
+
+    @Test
+    public void testOtherCursor()
+    {
+        MatrixCursor cursor1 = new MatrixCursor(new String[] { "title", "start", "count" });
+        cursor1.addRow(new Object[] { "first", 1400000000000L, 3 });
+        MatrixCursor cursor2 = new MatrixCursor(new String[] { "count", "missing", "_id", "start", "title" });
+        cursor2.addRow(new Object[] { 4, "x", 7, 1500000000000L, "second" });
+        assertTrue(cursor1.moveToFirst());
+        assertTrue(cursor2.moveToFirst());
+
+        CursorRow row = new CursorRow("title", "start", "count", "missing");
+
+        // the columns are resolved again whenever the cursor changes
+        for (int i = 0; i < 2; ++i)
+        {
+            row.of(cursor1);
+            assertFalse(row.has(COLUMN_MISSING));
+            assertEquals("first", row.getString(COLUMN_TITLE));
+            assertEquals(1400000000000L, row.getLong(COLUMN_START));
+            assertEquals(3, row.getInt(COLUMN_COUNT));
+
+            row.of(cursor2);
+            assertTrue(row.has(COLUMN_MISSING));
+            assertEquals("x", row.getString(COLUMN_MISSING));
+            assertEquals("second", row.getString(COLUMN_TITLE));
+            assertEquals(1500000000000L, row.getLong(COLUMN_START));
+            assertEquals(4, row.getInt(COLUMN_COUNT));
+        }
+    }
+
+
+    @Test
+    public void testColumnsResolvedOnce()
+    {
+        MatrixCursor matrixCursor = new MatrixCursor(new String[] { "title", "start", "count" });
+        for (int i = 0; i < 10; ++i)
+        {
+            matrixCursor.addRow(new Object[] { "title " + i, i, i * 2 });
+        }
+        CountingCursor cursor = new CountingCursor(matrixCursor);
+
+        CursorRow row = new CursorRow("title", "start", "count");
+        while (cursor.moveToNext())
+        {
+            assertEquals("title " + cursor.getPosition(), row.of(cursor).getString(COLUMN_TITLE));
+            assertEquals(cursor.getPosition(), row.getLong(COLUMN_START));
+            assertEquals(cursor.getPosition() * 2, row.getInt(COLUMN_COUNT));
+        }
+
+        // one lookup per column, not per row
+        assertEquals(3, cursor.columnLookups);
+    }
+
+
+    /**
+     * A {@link CursorWrapper} that counts the column index lookups.
+     */
+    private final static class CountingCursor extends CursorWrapper
+    {
+        int columnLookups;
+
+
+        CountingCursor(Cursor cursor)
+        {
+            super(cursor);
+        }
+
+
+        @Override
+        public int getColumnIndex(String columnName)
+        {
+            ++columnLookups;
+            return super.getColumnIndex(columnName);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.provider.Settings;
+import android.text.format.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Formatter;
+import java.util.Locale;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+
+/**
+ * Test that {@link DateFormatCache} returns the same results as {@link DateUtils} and keys them by everything that affects the result.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DateFormatCacheTest
+{
+    /**
+     * 2020-03-01 11:30:00 UTC.
+     */
+    private final static long TIMESTAMP = 1583062200000L;
+
+    private final static int TIME_FLAGS = DateUtils.FORMAT_SHOW_TIME;
+    private final static int DATE_FLAGS = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_SHOW_WEEKDAY;
+
+    private Context mContext;
+    private Locale mDefaultLocale;
+
+
+    @Before
+    public void setUp()
+    {
+        mContext = ApplicationProvider.getApplicationContext();
+        mDefaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        set24HourFormat(false);
+    }
+
+
+    @After
+    public void tearDown()
+    {
+        Locale.setDefault(mDefaultLocale);
+    }
+
+
+    @Test
+    public void testSameMinute()
+    {
+        String result = format(TIMESTAMP, TIME_FLAGS, "UTC");
+        assertEquals(expected(TIMESTAMP, TIME_FLAGS, "UTC"), result);
+
+        // all times within the same minute share the result
+        int hits = DateFormatCache.INSTANCE.hitCount();
+        assertSame(result, format(TIMESTAMP + 59 * 1000, TIME_FLAGS, "UTC"));
+        assertEquals(hits + 1, DateFormatCache.INSTANCE.hitCount());
+
+        // the next minute is formatted again
+        int misses = DateFormatCache.INSTANCE.missCount();
+        assertEquals(expected(TIMESTAMP + 60 * 1000, TIME_FLAGS, "UTC"), format(TIMESTAMP + 60 * 1000, TIME_FLAGS, "UTC"));
+        assertEquals(misses + 1, DateFormatCache.INSTANCE.missCount());
+    }
+
+
+    @Test
+    public void testBeforeEpoch()
+    {
+        // minutes before the epoch must be rounded down, not towards zero
+        long timestamp = -30 * 1000;
+        assertEquals(expected(timestamp, TIME_FLAGS, "UTC"), format(timestamp, TIME_FLAGS, "UTC"));
+        assertEquals(expected(timestamp + 60 * 1000, TIME_FLAGS, "UTC"), format(timestamp + 60 * 1000, TIME_FLAGS, "UTC"));
+    }
+
+
+    @Test
+    public void testFlags()
+    {
+        String time = format(TIMESTAMP, TIME_FLAGS, "UTC");
+        String date = format(TIMESTAMP, DATE_FLAGS, "UTC");
+        assertEquals(expected(TIMESTAMP, TIME_FLAGS, "UTC"), time);
+        assertEquals(expected(TIMESTAMP, DATE_FLAGS, "UTC"), date);
+        assertFalse(time.equals(date));
+    }
+
+
+    @Test
+    public void testTimeZone()
+    {
+        String utc = format(TIMESTAMP, TIME_FLAGS, "UTC");
+        String tokyo = format(TIMESTAMP, TIME_FLAGS, "Asia/Tokyo");
+        assertEquals(expected(TIMESTAMP, TIME_FLAGS, "UTC"), utc);
+        assertEquals(expected(TIMESTAMP, TIME_FLAGS, "Asia/Tokyo"), tokyo);
+        assertFalse(utc.equals(tokyo));
+
+        // 23:30 in New York is already the next day in Berlin
+        long lateEvening = TIMESTAMP + 17 * 3600 * 1000;
+        assertEquals(expected(lateEvening, DATE_FLAGS, "America/New_York"), format(lateEvening, DATE_FLAGS, "America/New_York"));
+        assertEquals(expected(lateEvening, DATE_FLAGS, "Europe/Berlin"), format(lateEvening, DATE_FLAGS, "Europe/Berlin"));
+        assertFalse(format(lateEvening, DATE_FLAGS, "America/New_York").equals(format(lateEvening, DATE_FLAGS, "Europe/Berlin")));
+    }
+
+
+    @Test
+    public void testLocale()
+    {
+        String english = format(TIMESTAMP, DATE_FLAGS, "UTC");
+        assertEquals(expected(TIMESTAMP, DATE_FLAGS, "UTC"), english);
+
+        Locale.setDefault(Locale.GERMANY);
+        String german = format(TIMESTAMP, DATE_FLAGS, "UTC");
+        assertEquals(expected(TIMESTAMP, DATE_FLAGS, "UTC"), german);
+        assertFalse(english.equals(german));
+
+        Locale.setDefault(Locale.US);
+        assertEquals(english, format(TIMESTAMP, DATE_FLAGS, "UTC"));
+    }
+
+
+    @Test
+    public void test24HourFormat()
+    {
+        String twelveHours = format(TIMESTAMP + 3 * 3600 * 1000, TIME_FLAGS, "UTC");
+        assertEquals(expected(TIMESTAMP + 3 * 3600 * 1000, TIME_FLAGS, "UTC"), twelveHours);
+
+        set24HourFormat(true);
+        String twentyFourHours = format(TIMESTAMP + 3 * 3600 * 1000, TIME_FLAGS, "UTC");
+        assertEquals(expected(TIMESTAMP + 3 * 3600 * 1000, TIME_FLAGS, "UTC"), twentyFourHours);
+        assertFalse(twelveHours.equals(twentyFourHours));
+
+        // dates don't depend on the setting, so they share the result
+        String date = format(TIMESTAMP, DATE_FLAGS, "UTC");
+        set24HourFormat(false);
+        assertSame(date, format(TIMESTAMP, DATE_FLAGS, "UTC"));
+    }
+
+
+    private String format(long timestamp, int flags, String timeZoneId)
+    {
+        return DateFormatCache.INSTANCE.format(mContext, timestamp, flags, timeZoneId);
+    }
+
+
+    private String expected(long timestamp, int flags, String timeZoneId)
+    {
+        return DateUtils.formatDateRange(mContext, new Formatter(new StringBuilder(), Locale.getDefault()), timestamp, timestamp, flags, timeZoneId)
+                .toString();
+    }
+
+
+    private void set24HourFormat(boolean is24Hour)
+    {
+        Settings.System.putString(mContext.getContentResolver(), Settings.System.TIME_12_24, is24Hour ? "24" : "12");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+
+/**
+ * Test {@link HotIconManifest}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HotIconManifestTest
+{
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+
+    @Test
+    public void testRoundTrip()
+    {
+        File file = new File(mFolder.getRoot(), "hot_icons");
+        HotIconManifest manifest = new HotIconManifest(file);
+        assertEquals(0, manifest.read().length);
+
+        // only the given number of ids is written
+        manifest.write(new long[] { 5, 3, Long.MAX_VALUE, -1, 0, 0, 0 }, 4);
+        assertArrayEquals(new long[] { 5, 3, Long.MAX_VALUE, -1 }, manifest.read());
+        // the manifest survives the session
+        assertArrayEquals(new long[] { 5, 3, Long.MAX_VALUE, -1 }, new HotIconManifest(file).read());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        // writing replaces the previous manifest
+        manifest.write(new long[] { 7 }, 1);
+        assertArrayEquals(new long[] { 7 }, manifest.read());
+    }
+
+
+    @Test
+    public void testMaxIcons()
+    {
+        long[] iconIds = new long[HotIconManifest.MAX_ICONS + 10];
+        for (int i = 0; i < iconIds.length; ++i)
+        {
+            iconIds[i] = 1000 + i;
+        }
+
+        HotIconManifest manifest = new HotIconManifest(new File(mFolder.getRoot(), "hot_icons"));
+        manifest.write(iconIds, iconIds.length);
+        assertArrayEquals(Arrays.copyOf(iconIds, HotIconManifest.MAX_ICONS), manifest.read());
+    }
+
+
+    @Test
+    public void testInvalidFile() throws IOException
+    {
+        File file = mFolder.newFile();
+        HotIconManifest manifest = new HotIconManifest(file);
+        // empty
+        assertEquals(0, manifest.read().length);
+
+        // not a manifest
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+        }
+        finally
+        {
+            out.close();
+        }
+        assertEquals(0, manifest.read().length);
+
+        // truncated
+        manifest.write(new long[] { 1, 2, 3 }, 3);
+        byte[] truncated = new byte[(int) file.length() - 4];
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            assertEquals(truncated.length, in.read(truncated));
+        }
+        finally
+        {
+            in.close();
+        }
+        out = new FileOutputStream(file);
+        try
+        {
+            out.write(truncated);
+        }
+        finally
+        {
+            out.close();
+        }
+        assertEquals(0, manifest.read().length);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Test {@link IconDiskCache}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class IconDiskCacheTest
+{
+    private final static long MAX_SIZE = 1024 * 1024;
+    private final static long MAX_AGE = 3600 * 1000;
+
+    /**
+     * The maximum time to wait for the background writes in milliseconds.
+     */
+    private final static long TIMEOUT = 5000;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+
+    @Test
+    public void testRoundTrip() throws IOException, InterruptedException
+    {
+        BitmapPool pool = new BitmapPool(0);
+        IconDiskCache cache = new IconDiskCache(mFolder.newFolder(), MAX_SIZE, MAX_AGE, pool);
+        assertNull(cache.get(1));
+
+        Bitmap bitmap = Bitmap.createBitmap(4, 3, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.RED);
+        bitmap.setPixel(1, 2, Color.BLUE);
+        bitmap.setDensity(320);
+        bitmap.setHasAlpha(false);
+        cache.put(1, 0x1234567890abcdefL, bitmap);
+
+        IconDiskCache.Entry entry = await(cache, 1);
+        assertEquals(0x1234567890abcdefL, entry.contentHash);
+        assertEquals(4, entry.bitmap.getWidth());
+        assertEquals(3, entry.bitmap.getHeight());
+        assertEquals(320, entry.bitmap.getDensity());
+        assertFalse(entry.bitmap.hasAlpha());
+        assertEquals(Color.RED, entry.bitmap.getPixel(0, 0));
+        assertEquals(Color.BLUE, entry.bitmap.getPixel(1, 2));
+    }
+
+
+    @Test
+    public void testPooledBitmap() throws IOException, InterruptedException
+    {
+        BitmapPool pool = new BitmapPool(1024);
+        IconDiskCache cache = new IconDiskCache(mFolder.newFolder(), MAX_SIZE, MAX_AGE, pool);
+
+        Bitmap transparent = Bitmap.createBitmap(4, 4, Bitmap.Config.ARGB_8888);
+        transparent.eraseColor(Color.TRANSPARENT);
+        transparent.setHasAlpha(true);
+        cache.put(1, 1, transparent);
+        await(cache, 1);
+
+        // a pooled bitmap of an opaque icon must not make the transparent icon opaque
+        Bitmap pooled = Bitmap.createBitmap(4, 4, Bitmap.Config.ARGB_8888);
+        pooled.setHasAlpha(false);
+        pool.put(pooled);
+
+        IconDiskCache.Entry entry = cache.get(1);
+        assertSame(pooled, entry.bitmap);
+        assertTrue(entry.bitmap.hasAlpha());
+        assertEquals(1, pool.hitCount());
+    }
+
+
+    @Test
+    public void testRemove() throws IOException, InterruptedException
+    {
+        IconDiskCache cache = new IconDiskCache(mFolder.newFolder(), MAX_SIZE, MAX_AGE, new BitmapPool(0));
+        cache.put(1, 1, Bitmap.createBitmap(2, 2, Bitmap.Config.ARGB_8888));
+        await(cache, 1);
+
+        cache.remove(1);
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (cache.get(1) != null)
+        {
+            assertTrue("timeout waiting for the icon to be removed", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+
+    /**
+     * Wait for the icon with the given id to be written.
+     */
+    private static IconDiskCache.Entry await(IconDiskCache cache, long iconId) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        IconDiskCache.Entry entry;
+        while ((entry = cache.get(iconId)) == null)
+        {
+            assertTrue("timeout waiting for the icon to be written", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+        return entry;
+    }
+}
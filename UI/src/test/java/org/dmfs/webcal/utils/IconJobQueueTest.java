@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.dmfs.webcal.utils.ImageProxy.PRIORITY_OFFSCREEN;
+import static org.dmfs.webcal.utils.ImageProxy.PRIORITY_PREFETCH;
+import static org.dmfs.webcal.utils.ImageProxy.PRIORITY_VISIBLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Test {@link IconJobQueue}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class IconJobQueueTest
+{
+    @Test
+    public void testPollOrder()
+    {
+        IconJobQueue queue = new IconJobQueue(0);
+        assertEquals(-1, queue.put(1, PRIORITY_OFFSCREEN));
+        assertEquals(-1, queue.put(2, PRIORITY_VISIBLE));
+        assertEquals(-1, queue.put(3, PRIORITY_PREFETCH));
+        assertEquals(-1, queue.put(4, PRIORITY_VISIBLE));
+        assertEquals(4, queue.size());
+
+        // priority class first, the most recent job of a class first
+        assertPolled(queue, 4, 2, 3, 1);
+    }
+
+
+    @Test
+    public void testPutExisting()
+    {
+        IconJobQueue queue = new IconJobQueue(0);
+        queue.put(1, PRIORITY_VISIBLE);
+        queue.put(2, PRIORITY_VISIBLE);
+        queue.put(3, PRIORITY_OFFSCREEN);
+
+        // requesting a job again makes it the most recent job of its new class
+        assertEquals(-1, queue.put(1, PRIORITY_VISIBLE));
+        assertEquals(-1, queue.put(3, PRIORITY_VISIBLE));
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.depth(PRIORITY_VISIBLE));
+        assertEquals(0, queue.depth(PRIORITY_OFFSCREEN));
+
+        assertPolled(queue, 3, 1, 2);
+    }
+
+
+    @Test
+    public void testSetPriority()
+    {
+        IconJobQueue queue = new IconJobQueue(0);
+        queue.put(1, PRIORITY_VISIBLE);
+        queue.put(2, PRIORITY_VISIBLE);
+        queue.put(3, PRIORITY_OFFSCREEN);
+        queue.put(4, PRIORITY_OFFSCREEN);
+
+        // job 2 goes to the offscreen class, job 3 to the visible class, both keep their position within the class
+        assertTrue(queue.setPriority(2, PRIORITY_OFFSCREEN));
+        assertTrue(queue.setPriority(3, PRIORITY_VISIBLE));
+        assertFalse(queue.setPriority(5, PRIORITY_VISIBLE));
+        assertFalse(queue.contains(5));
+
+        assertEquals(2, queue.depth(PRIORITY_VISIBLE));
+        assertEquals(0, queue.depth(PRIORITY_PREFETCH));
+        assertEquals(2, queue.depth(PRIORITY_OFFSCREEN));
+
+        assertPolled(queue, 3, 1, 4, 2);
+    }
+
+
+    @Test
+    public void testRemove()
+    {
+        IconJobQueue queue = new IconJobQueue(0);
+        for (long id = 1; id <= 7; ++id)
+        {
+            queue.put(id, id % 2 == 0 ? PRIORITY_VISIBLE : PRIORITY_PREFETCH);
+        }
+
+        // remove jobs from the middle of the heap
+        assertTrue(queue.remove(4));
+        assertTrue(queue.remove(3));
+        assertFalse(queue.remove(4));
+        assertFalse(queue.contains(4));
+        assertFalse(queue.contains(3));
+        assertEquals(5, queue.size());
+        assertEquals(2, queue.depth(PRIORITY_VISIBLE));
+        assertEquals(3, queue.depth(PRIORITY_PREFETCH));
+
+        assertPolled(queue, 6, 2, 7, 5, 1);
+    }
+
+
+    @Test
+    public void testDropLowestRank()
+    {
+        IconJobQueue queue = new IconJobQueue(3);
+        assertEquals(-1, queue.put(1, PRIORITY_OFFSCREEN));
+        assertEquals(-1, queue.put(2, PRIORITY_VISIBLE));
+        assertEquals(-1, queue.put(3, PRIORITY_VISIBLE));
+
+        // the job of the lowest class is dropped first
+        assertEquals(1, queue.put(4, PRIORITY_VISIBLE));
+        assertFalse(queue.contains(1));
+
+        // within a class, the oldest job is dropped
+        assertEquals(2, queue.put(5, PRIORITY_VISIBLE));
+        assertFalse(queue.contains(2));
+
+        // a new job of a lower class is dropped right away
+        assertEquals(6, queue.put(6, PRIORITY_PREFETCH));
+        assertFalse(queue.contains(6));
+
+        // updating an existing job never drops anything
+        assertEquals(-1, queue.put(3, PRIORITY_VISIBLE));
+        assertEquals(3, queue.size());
+
+        assertPolled(queue, 3, 5, 4);
+    }
+
+
+    private static void assertPolled(IconJobQueue queue, long... expected)
+    {
+        for (long iconId : expected)
+        {
+            assertEquals(iconId, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(-1, queue.poll());
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+
+/**
+ * Test the worker pool of {@link ImageLoaderQueue}.
+ * <p>
+ * The main looper is paused, so the results of the workers are delivered to the test thread when it idles the looper.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class ImageLoaderQueueTest
+{
+    /**
+     * The maximum time to wait for the workers in milliseconds.
+     */
+    private final static long TIMEOUT = 5000;
+
+    private TestImageProxy mImageProxy;
+
+
+    @Before
+    public void setUp()
+    {
+        mImageProxy = new TestImageProxy(ApplicationProvider.<Context>getApplicationContext());
+    }
+
+
+    @After
+    public void tearDown()
+    {
+        // never leave a worker blocked
+        mImageProxy.release.countDown();
+    }
+
+
+    @Test
+    public void testBoundedWorkers() throws InterruptedException
+    {
+        ImageLoaderQueue queue = new ImageLoaderQueue(mImageProxy, 2, 0);
+        for (long iconId = 1; iconId <= 6; ++iconId)
+        {
+            queue.addJob(iconId, ImageProxy.PRIORITY_VISIBLE);
+        }
+
+        awaitRunning(2);
+        // give any surplus worker a chance to show up
+        Thread.sleep(100);
+        assertEquals(2, mImageProxy.running.get());
+        assertEquals(4, queue.queueDepth(ImageProxy.PRIORITY_VISIBLE));
+
+        mImageProxy.release.countDown();
+        awaitReady(6);
+        assertEquals(2, mImageProxy.maxRunning.get());
+        for (long iconId = 1; iconId <= 6; ++iconId)
+        {
+            assertEquals(1, mImageProxy.reads(iconId));
+        }
+    }
+
+
+    @Test
+    public void testInFlightJob() throws InterruptedException
+    {
+        ImageLoaderQueue queue = new ImageLoaderQueue(mImageProxy, 2, 0);
+        queue.addJob(1, ImageProxy.PRIORITY_VISIBLE);
+        awaitRunning(1);
+
+        // the image is being loaded already, it's neither queued nor loaded again
+        assertEquals(-1, queue.addJob(1, ImageProxy.PRIORITY_VISIBLE));
+        assertEquals(-1, queue.addPrefetchJob(1));
+        assertEquals(0, queue.queueDepth(ImageProxy.PRIORITY_VISIBLE));
+        assertEquals(0, queue.queueDepth(ImageProxy.PRIORITY_PREFETCH));
+
+        mImageProxy.release.countDown();
+        awaitReady(1);
+        Thread.sleep(100);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(1, mImageProxy.ready.size());
+        assertEquals(1, mImageProxy.reads(1));
+
+        // once it has been delivered it can be loaded again
+        queue.addJob(1, ImageProxy.PRIORITY_VISIBLE);
+        awaitReady(2);
+        assertEquals(2, mImageProxy.reads(1));
+    }
+
+
+    @Test
+    public void testRemoveJob() throws InterruptedException
+    {
+        ImageLoaderQueue queue = new ImageLoaderQueue(mImageProxy, 1, 0);
+        queue.addJob(1, ImageProxy.PRIORITY_VISIBLE);
+        awaitRunning(1);
+        queue.addJob(2, ImageProxy.PRIORITY_VISIBLE);
+        queue.addJob(3, ImageProxy.PRIORITY_VISIBLE);
+
+        queue.removeJob(2);
+        // removing a job that is being loaded has no effect
+        queue.removeJob(1);
+
+        mImageProxy.release.countDown();
+        awaitReady(2);
+        Thread.sleep(100);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(2, mImageProxy.ready.size());
+        assertTrue(mImageProxy.ready.contains(1L));
+        assertTrue(mImageProxy.ready.contains(3L));
+        assertFalse(mImageProxy.ready.contains(2L));
+        assertEquals(0, mImageProxy.reads(2));
+    }
+
+
+    private void awaitRunning(int workers) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (mImageProxy.running.get() < workers)
+        {
+            assertTrue("timeout waiting for " + workers + " workers", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+
+    private void awaitReady(int images) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (mImageProxy.ready.size() < images)
+        {
+            assertTrue("timeout waiting for " + images + " images", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+
+
+    /**
+     * An {@link ImageProxy} that doesn't access the storage or the provider. Reading an image blocks until {@link #release} has been counted down.
+     */
+    private final static class TestImageProxy extends ImageProxy
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final ConcurrentHashMap<Long, AtomicInteger> readCounts = new ConcurrentHashMap<Long, AtomicInteger>();
+        /**
+         * The ids of the delivered images, only accessed on the main thread.
+         */
+        final List<Long> ready = new ArrayList<Long>();
+
+
+        TestImageProxy(Context context)
+        {
+            super(context);
+        }
+
+
+        int reads(long iconId)
+        {
+            AtomicInteger count = readCounts.get(iconId);
+            return count == null ? 0 : count.get();
+        }
+
+
+        @Override
+        Bitmap loadCachedBitmap(long iconId)
+        {
+            return null;
+        }
+
+
+        @Override
+        byte[] readImage(long iconId, boolean blocking) throws IOException
+        {
+            readCounts.putIfAbsent(iconId, new AtomicInteger());
+            readCounts.get(iconId).incrementAndGet();
+
+            int workers = running.incrementAndGet();
+            int max;
+            while ((max = maxRunning.get()) < workers && !maxRunning.compareAndSet(max, workers))
+            {
+                // try again
+            }
+
+            try
+            {
+                if (!release.await(TIMEOUT, TimeUnit.MILLISECONDS))
+                {
+                    throw new IOException("timeout");
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException("interrupted");
+            }
+            finally
+            {
+                running.decrementAndGet();
+            }
+            return new byte[] { (byte) iconId };
+        }
+
+
+        @Override
+        Bitmap decodeImage(byte[] data)
+        {
+            return Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+        }
+
+
+        @Override
+        void imageReady(long iconId, Drawable result)
+        {
+            ready.add(iconId);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.ParcelFileDescriptor;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+
+/**
+ * Test the cache of encoded images of {@link ImageProxy}.
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ImageProxyTest
+{
+    private final static byte[] IMAGE = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 };
+    private final static byte[] OTHER_IMAGE = new byte[] { 8, 7, 6, 5, 4, 3, 2, 1 };
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private TestImageProxy mImageProxy;
+
+
+    @Before
+    public void setUp() throws IOException
+    {
+        mImageProxy = new TestImageProxy(ApplicationProvider.<Context>getApplicationContext());
+        mImageProxy.put(1, IMAGE);
+        mImageProxy.put(2, IMAGE.clone());
+        mImageProxy.put(3, OTHER_IMAGE);
+    }
+
+
+    @Test
+    public void testEncodedCache() throws IOException
+    {
+        assertNull(mImageProxy.cachedEncodedImage(1));
+        assertCounts(0, 1);
+
+        byte[] data = mImageProxy.readImage(1, false);
+        assertArrayEquals(IMAGE, data);
+        assertSame(data, mImageProxy.cachedEncodedImage(1));
+        assertCounts(1, 1);
+
+        // other images are not in the cache yet
+        assertNull(mImageProxy.cachedEncodedImage(3));
+        assertCounts(1, 2);
+        assertArrayEquals(OTHER_IMAGE, mImageProxy.readImage(3, false));
+        assertArrayEquals(OTHER_IMAGE, mImageProxy.cachedEncodedImage(3));
+        assertArrayEquals(IMAGE, mImageProxy.cachedEncodedImage(1));
+        assertCounts(3, 2);
+        assertEquals(0, mImageProxy.sharedImageBytes());
+    }
+
+
+    @Test
+    public void testSharedContent() throws IOException
+    {
+        mImageProxy.readImage(1, false);
+        mImageProxy.readImage(2, false);
+
+        // both ids have the same content, it's stored only once
+        assertEquals(IMAGE.length, mImageProxy.sharedImageBytes());
+        assertSame(mImageProxy.cachedEncodedImage(1), mImageProxy.cachedEncodedImage(2));
+        assertCounts(2, 0);
+    }
+
+
+    @Test
+    public void testTrimMemory() throws IOException
+    {
+        mImageProxy.readImage(1, false);
+        mImageProxy.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertNull(mImageProxy.cachedEncodedImage(1));
+        assertCounts(0, 1);
+    }
+
+
+    private void assertCounts(int hits, int misses)
+    {
+        assertEquals(hits, mImageProxy.encodedCacheHitCount());
+        assertEquals(misses, mImageProxy.encodedCacheMissCount());
+    }
+
+
+    /**
+     * An {@link ImageProxy} that reads the images from files instead of the content provider.
+     */
+    private final class TestImageProxy extends ImageProxy
+    {
+        private final Map<Long, File> mFiles = new HashMap<Long, File>();
+
+
+        TestImageProxy(Context context)
+        {
+            super(context);
+        }
+
+
+        void put(long iconId, byte[] data) throws IOException
+        {
+            File file = mFolder.newFile("icon" + iconId);
+            FileOutputStream out = new FileOutputStream(file);
+            try
+            {
+                out.write(data);
+            }
+            finally
+            {
+                out.close();
+            }
+            mFiles.put(iconId, file);
+        }
+
+
+        @Override
+        AssetFileDescriptor openImage(long iconId, boolean blocking) throws FileNotFoundException
+        {
+            File file = mFiles.get(iconId);
+            if (file == null)
+            {
+                throw new FileNotFoundException("no image with id " + iconId);
+            }
+            return new AssetFileDescriptor(ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY), 0, file.length());
+        }
+    }
+}
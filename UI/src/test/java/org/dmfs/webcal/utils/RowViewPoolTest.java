@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ListView;
+
+import org.dmfs.webcal.R;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+
+/**
+ * Test {@link RowViewPool}.
+ * <p>
+ * The main looper is paused, so rows inflated in advance are added to the pool when the test idles the looper.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class RowViewPoolTest
+{
+    /**
+     * The maximum time to wait for the rows inflated in advance in milliseconds.
+     */
+    private final static long TIMEOUT = 5000;
+
+    private Context mContext;
+    private LayoutInflater mInflater;
+    private ViewGroup mParent;
+
+
+    @Before
+    public void setUp()
+    {
+        mContext = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.SchedJoules_Theme_Default);
+        mInflater = LayoutInflater.from(mContext);
+        mParent = new ListView(mContext);
+    }
+
+
+    @Test
+    public void testReuse()
+    {
+        RowViewPool pool = new RowViewPool();
+        View page1 = pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        View page2 = pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        View calendar = pool.inflate(mInflater, R.layout.calendar_entry_item, mParent);
+        assertEquals(3, pool.inflationCount());
+        assertEquals(0, pool.reuseCount());
+
+        pool.recycle(Arrays.asList(page1, page2));
+        // rows are only reused for the same layout
+        assertNotSame(calendar, pool.inflate(mInflater, R.layout.calendar_entry_item, mParent));
+        View reused1 = pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        View reused2 = pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        assertTrue(reused1 == page1 && reused2 == page2 || reused1 == page2 && reused2 == page1);
+        assertEquals(4, pool.inflationCount());
+        assertEquals(2, pool.reuseCount());
+
+        // the pool is empty now
+        pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        assertEquals(5, pool.inflationCount());
+    }
+
+
+    @Test
+    public void testForeignRows()
+    {
+        RowViewPool pool = new RowViewPool();
+        View attached = pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        new FrameLayout(mContext).addView(attached);
+
+        // rows that have not been inflated by the pool and rows that are still attached are ignored
+        pool.recycle(Arrays.asList(mInflater.inflate(R.layout.page_entry_item, mParent, false), attached));
+        pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        assertEquals(2, pool.inflationCount());
+        assertEquals(0, pool.reuseCount());
+    }
+
+
+    @Test
+    public void testMaxRows()
+    {
+        RowViewPool pool = new RowViewPool();
+        List<View> rows = new ArrayList<View>();
+        for (int i = 0; i < 30; ++i)
+        {
+            rows.add(pool.inflate(mInflater, R.layout.page_entry_item, mParent));
+        }
+        pool.recycle(rows);
+
+        for (int i = 0; i < 30; ++i)
+        {
+            pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        }
+        // the pool keeps 24 rows per layout
+        assertEquals(24, pool.reuseCount());
+        assertEquals(36, pool.inflationCount());
+    }
+
+
+    @Test
+    public void testClear()
+    {
+        RowViewPool pool = new RowViewPool();
+        pool.recycle(Collections.singletonList(pool.inflate(mInflater, R.layout.page_entry_item, mParent)));
+        pool.clear();
+        pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        assertEquals(0, pool.reuseCount());
+        assertEquals(2, pool.inflationCount());
+    }
+
+
+    @Test
+    public void testPreinflate() throws InterruptedException
+    {
+        RowViewPool pool = new RowViewPool();
+        pool.preinflate(mContext, R.layout.page_entry_item, 3);
+        awaitPreinflation(pool, 3);
+
+        View row = null;
+        for (int i = 0; i < 3; ++i)
+        {
+            row = pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        }
+        assertEquals(3, pool.reuseCount());
+        assertEquals(0, pool.inflationCount());
+        // rows inflated in advance can be recycled like any other row
+        pool.recycle(Collections.singletonList(row));
+        assertSame(row, pool.inflate(mInflater, R.layout.page_entry_item, mParent));
+    }
+
+
+    @Test
+    public void testClearDropsPreinflation() throws InterruptedException
+    {
+        RowViewPool pool = new RowViewPool();
+        pool.preinflate(mContext, R.layout.page_entry_item, 3);
+        pool.clear();
+        // the rows are inflated one after the other, once this one has arrived, the others have been dropped
+        pool.preinflate(mContext, R.layout.calendar_entry_item, 1);
+        awaitPreinflation(pool, 1);
+
+        pool.inflate(mInflater, R.layout.page_entry_item, mParent);
+        pool.inflate(mInflater, R.layout.calendar_entry_item, mParent);
+        assertEquals(1, pool.preinflationCount());
+        assertEquals(1, pool.reuseCount());
+        assertEquals(1, pool.inflationCount());
+    }
+
+
+    private static void awaitPreinflation(RowViewPool pool, int rows) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (pool.preinflationCount() < rows)
+        {
+            assertTrue("timeout waiting for " + rows + " rows", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+}
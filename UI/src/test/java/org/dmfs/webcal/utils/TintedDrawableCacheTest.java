@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 SchedJoules
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.webcal.utils;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+
+import org.dmfs.webcal.R;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import androidx.core.content.ContextCompat;
+import androidx.test.core.app.ApplicationProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+
+/**
+ * Test {@link TintedDrawableCache}.
+ * <p>
+ * The cache is a process wide singleton, so the tests only check how the hit and miss counts change.
+ * </p>
+ *
+ * @author agent <agent@local>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TintedDrawableCacheTest
+{
+    private Context mContext;
+    private int mHits;
+    private int mMisses;
+
+
+    @Before
+    public void setUp()
+    {
+        mContext = ApplicationProvider.getApplicationContext();
+        mHits = TintedDrawableCache.INSTANCE.hitCount();
+        mMisses = TintedDrawableCache.INSTANCE.missCount();
+    }
+
+
+    @Test
+    public void testResource()
+    {
+        // use a color no other test uses, so the first request is a miss
+        Drawable first = TintedDrawableCache.INSTANCE.drawable(mContext, R.drawable.ic_fa_star, 0xff010203);
+        assertCounts(0, 1);
+
+        Drawable second = TintedDrawableCache.INSTANCE.drawable(mContext, R.drawable.ic_fa_star, 0xff010203);
+        assertCounts(1, 1);
+        // a new drawable that shares the tinted state
+        assertNotSame(first, second);
+        assertSame(first.getConstantState(), second.getConstantState());
+
+        Drawable other = TintedDrawableCache.INSTANCE.drawable(mContext, R.drawable.ic_fa_star, 0xff030201);
+        assertCounts(1, 2);
+        assertNotSame(first.getConstantState(), other.getConstantState());
+    }
+
+
+    @Test
+    public void testDrawable()
+    {
+        Drawable original = ContextCompat.getDrawable(mContext, R.drawable.ic_fa_star_o);
+        Drawable.ConstantState originalState = original.getConstantState();
+
+        Drawable first = TintedDrawableCache.INSTANCE.drawable(mContext, original, 0xff040506);
+        assertCounts(0, 1);
+        Drawable second = TintedDrawableCache.INSTANCE.drawable(mContext, original, 0xff040506);
+        assertCounts(1, 1);
+        assertNotSame(first, second);
+        assertSame(first.getConstantState(), second.getConstantState());
+
+        // the original has not been tinted
+        assertNotSame(original, first);
+        assertSame(originalState, original.getConstantState());
+        assertNotSame(originalState, first.getConstantState());
+
+        // another instance of the same resource shares the original state
+        TintedDrawableCache.INSTANCE.drawable(mContext, ContextCompat.getDrawable(mContext, R.drawable.ic_fa_star_o), 0xff040506);
+        assertCounts(2, 1);
+    }
+
+
+    @Test
+    public void testConfigurationChange()
+    {
+        Configuration nightConfiguration = new Configuration(mContext.getResources().getConfiguration());
+        nightConfiguration.uiMode = Configuration.UI_MODE_NIGHT_YES | Configuration.UI_MODE_TYPE_NORMAL;
+        Context nightContext = mContext.createConfigurationContext(nightConfiguration);
+
+        TintedDrawableCache.INSTANCE.drawable(mContext, R.drawable.ic_fa_star, Color.RED);
+        TintedDrawableCache.INSTANCE.drawable(mContext, R.drawable.ic_fa_star, Color.RED);
+        int hits = TintedDrawableCache.INSTANCE.hitCount();
+        int misses = TintedDrawableCache.INSTANCE.missCount();
+
+        // the states of the other configuration are not reused
+        TintedDrawableCache.INSTANCE.drawable(nightContext, R.drawable.ic_fa_star, Color.RED);
+        assertEquals(hits, TintedDrawableCache.INSTANCE.hitCount());
+        assertEquals(misses + 1, TintedDrawableCache.INSTANCE.missCount());
+        TintedDrawableCache.INSTANCE.drawable(nightContext, R.drawable.ic_fa_star, Color.RED);
+        assertEquals(hits + 1, TintedDrawableCache.INSTANCE.hitCount());
+
+        // switching back tints the drawable again
+        TintedDrawableCache.INSTANCE.drawable(mContext, R.drawable.ic_fa_star, Color.RED);
+        assertEquals(hits + 1, TintedDrawableCache.INSTANCE.hitCount());
+        assertEquals(misses + 2, TintedDrawableCache.INSTANCE.missCount());
+    }
+
+
+    private void assertCounts(int hits, int misses)
+    {
+        assertEquals(mHits + hits, TintedDrawableCache.INSTANCE.hitCount());
+        assertEquals(mMisses + misses, TintedDrawableCache.INSTANCE.missCount());
+    }
+}